@@ -0,0 +1,113 @@
+package com.mpa.microservices.resilient.bookstore.benchmarks;
+
+import com.mpa.microservices.resilient.bookstore.RecommendationsClient;
+import com.mpa.microservices.resilient.bookstore.services.CircuitBreakerRecommendationsService;
+import com.mpa.microservices.resilient.bookstore.services.RateLimiterRecommendationsService;
+import com.mpa.microservices.resilient.bookstore.services.ReactiveRecommendationsService;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+//Cost of each way the service calls order-history-service, on the real Spring beans (so the AOP path is proxied)
+// against an in-process stub. Run with -prof gc (the profile's default benchmarks.args) for allocation rates.
+//
+// HEALTHY:       every call reaches the stub
+// BREAKER_OPEN:  all registry circuit breakers are forced open, so decorated paths go straight to fallback
+// RATE_LIMITED:  propsRL has no permits left and does not wait, so rate limited paths go straight to fallback
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecorationPathBenchmark {
+
+    @Param({"HEALTHY", "BREAKER_OPEN", "RATE_LIMITED"})
+    public String scenario;
+
+    private StubOrdersHistoryServer server;
+    private ConfigurableApplicationContext context;
+    private CircuitBreakerRecommendationsService circuitBreakerService;
+    private RateLimiterRecommendationsService rateLimiterService;
+    private ReactiveRecommendationsService reactiveService;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new StubOrdersHistoryServer();
+        boolean rateLimited = "RATE_LIMITED".equals(scenario);
+        String rateLimiter = "--resilience4j.ratelimiter.instances.propsRL.";
+        //passed as command line arguments so they win over application.yml
+        context = new SpringApplicationBuilder(RecommendationsClient.class)
+                .web(WebApplicationType.NONE)
+                .run("--order-history-service.url=" + server.getBaseUrl(),
+                        "--logging.level.root=WARN",
+                        //every call misses the cache, so the decoration path itself is measured
+                        "--recommendations.cache.ttl=0s",
+                        "--recommendations.cache.maxStale=0s",
+                        rateLimiter + "limitForPeriod=" + (rateLimited ? 1 : 100000000),
+                        rateLimiter + "limitRefreshPeriod=" + (rateLimited ? "1h" : "1s"),
+                        rateLimiter + "timeoutDuration=0s");
+        circuitBreakerService = context.getBean(CircuitBreakerRecommendationsService.class);
+        rateLimiterService = context.getBean(RateLimiterRecommendationsService.class);
+        reactiveService = context.getBean(ReactiveRecommendationsService.class);
+        if ("BREAKER_OPEN".equals(scenario)) {
+            CircuitBreakerRegistry circuitBreakerRegistry = context.getBean(CircuitBreakerRegistry.class);
+            for (String name : List.of("default", "annotationCB", "propsCB")) {
+                circuitBreakerRegistry.circuitBreaker(name).transitionToForcedOpenState();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        server.close();
+    }
+
+    @Benchmark
+    public List<String> plainFeign() {
+        return circuitBreakerService.getRecommendationsNoCB();
+    }
+
+    @Benchmark
+    public List<String> vavrTrySupplier() {
+        return circuitBreakerService.getRecommendationsWithFallback();
+    }
+
+    @Benchmark
+    public List<String> aopAnnotation() {
+        return circuitBreakerService.getRecommendationsAnnotationCB();
+    }
+
+    @Benchmark
+    public List<String> feignDecorators() {
+        return circuitBreakerService.getRecommendationsFeignBuilder();
+    }
+
+    @Benchmark
+    public List<String> reactorOperatorsBlocking() {
+        return rateLimiterService.getRecommendationsWebClient();
+    }
+
+    @Benchmark
+    public List<String> reactorOperatorsNonBlocking() {
+        return reactiveService.getRecommendations().block(Duration.ofSeconds(1));
+    }
+}
@@ -0,0 +1,108 @@
+package com.mpa.microservices.resilient.bookstore.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mpa.microservices.resilient.bookstore.clients.OrdersHistoryClient;
+import com.mpa.microservices.resilient.bookstore.clients.ResilientFeignClientFactory;
+import com.mpa.microservices.resilient.bookstore.conditional.ConditionalGetCache;
+import com.mpa.microservices.resilient.bookstore.config.OrdersHistoryHttpClientConfiguration;
+import com.mpa.microservices.resilient.bookstore.config.OrdersHistoryHttpClientProperties;
+import com.mpa.microservices.resilient.bookstore.isolation.IsolationProperties;
+import com.mpa.microservices.resilient.bookstore.isolation.OrdersHistoryIsolation;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveLimiterProperties;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveLimiterRegistry;
+import com.mpa.microservices.resilient.bookstore.metrics.RecommendationsMetrics;
+import feign.jackson.JacksonDecoder;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.feign.FeignDecorators;
+import io.github.resilience4j.feign.Resilience4jFeign;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+
+//Per-call latency of the old per-request Resilience4jFeign.builder path vs the cached, pooled factory client.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeignClientCreationBenchmark {
+
+    private StubOrdersHistoryServer server;
+    private CloseableHttpClient httpClient;
+    private OrdersHistoryIsolation isolation;
+    private ResilientFeignClientFactory factory;
+    private CircuitBreaker circuitBreaker;
+    private RateLimiter rateLimiter;
+    private String baseUrl;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new StubOrdersHistoryServer();
+        baseUrl = server.getBaseUrl();
+        OrdersHistoryHttpClientConfiguration configuration = new OrdersHistoryHttpClientConfiguration();
+        OrdersHistoryHttpClientProperties properties = new OrdersHistoryHttpClientProperties();
+        httpClient = configuration.ordersHistoryHttpClient(properties);
+        isolation = new OrdersHistoryIsolation(new IsolationProperties(), BulkheadRegistry.ofDefaults(),
+                ThreadPoolBulkheadRegistry.ofDefaults(), TimeLimiterRegistry.ofDefaults());
+        RecommendationsMetrics metrics = new RecommendationsMetrics(new SimpleMeterRegistry());
+        factory = new ResilientFeignClientFactory(configuration.feignClient(httpClient, metrics,
+                new ConditionalGetCache(properties), properties),
+                configuration.feignRequestOptions(properties), new ObjectMapper(),
+                Collections.singletonList(configuration.acceptSmile(properties)),
+                new AdaptiveLimiterRegistry(new AdaptiveLimiterProperties()), isolation, metrics);
+        circuitBreaker = CircuitBreaker.ofDefaults("benchmarkCB");
+        //effectively unlimited, the benchmark measures decoration overhead and not throttling
+        rateLimiter = RateLimiter.of("benchmarkRL", RateLimiterConfig.custom()
+                .limitForPeriod(Integer.MAX_VALUE)
+                .limitRefreshPeriod(Duration.ofNanos(1))
+                .timeoutDuration(Duration.ZERO)
+                .build());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        httpClient.close();
+        isolation.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    public List<String> perRequestBuilder() {
+        FeignDecorators decorators = FeignDecorators.builder()
+                .withRateLimiter(rateLimiter)
+                .withCircuitBreaker(circuitBreaker)
+                .build();
+        OrdersHistoryClient ordersHistoryClient = Resilience4jFeign.builder(decorators)
+                .contract(new SpringMvcContract())
+                .decoder(new JacksonDecoder())
+                .target(OrdersHistoryClient.class, baseUrl);
+        return ordersHistoryClient.getOrdersForRL();
+    }
+
+    @Benchmark
+    public List<String> cachedPooledClient() {
+        return factory.ordersHistoryClient(circuitBreaker, rateLimiter, baseUrl).getOrdersForRL();
+    }
+}
@@ -0,0 +1,106 @@
+package com.mpa.microservices.resilient.bookstore.benchmarks;
+
+import com.mpa.microservices.resilient.bookstore.cluster.FilePermitCoordinator;
+import com.mpa.microservices.resilient.bookstore.cluster.InProcessPermitCoordinator;
+import com.mpa.microservices.resilient.bookstore.cluster.LeasedRateLimiter;
+import com.mpa.microservices.resilient.bookstore.cluster.PermitCoordinator;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Cost of one permit when the limit is far from reached: resilience4j's own per instance limiter against the leased
+// one, which only goes to the coordinator once per leaseSize permits. The *Saturated benchmarks measure a denied call
+// instead, the limit of their window is spent within the first lease. Run with -t to see contention.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeasedRateLimiterBenchmark {
+
+    private static final RateLimiterConfig CONFIG = RateLimiterConfig.custom()
+            .limitForPeriod(Integer.MAX_VALUE / 2)
+            .limitRefreshPeriod(Duration.ofSeconds(1))
+            .timeoutDuration(Duration.ZERO)
+            .build();
+    //an hour long window, so it rolls over at most once during the run
+    private static final RateLimiterConfig SATURATED_CONFIG = RateLimiterConfig.custom()
+            .limitForPeriod(1)
+            .limitRefreshPeriod(Duration.ofHours(1))
+            .timeoutDuration(Duration.ZERO)
+            .build();
+
+    @Param({"100", "1000"})
+    public int leaseSize;
+
+    private RateLimiter local;
+    private LeasedRateLimiter inProcess;
+    private LeasedRateLimiter file;
+    private FilePermitCoordinator fileCoordinator;
+    private RateLimiter localSaturated;
+    private LeasedRateLimiter inProcessSaturated;
+    private LeasedRateLimiter fileSaturated;
+
+    @Setup
+    public void setUp() throws IOException {
+        local = RateLimiter.of("local", CONFIG);
+        PermitCoordinator coordinator = new InProcessPermitCoordinator();
+        inProcess = new LeasedRateLimiter("inProcess", CONFIG, coordinator, leaseSize);
+        fileCoordinator = new FilePermitCoordinator(Files.createTempDirectory("permits"));
+        file = new LeasedRateLimiter("file", CONFIG, fileCoordinator, leaseSize);
+        localSaturated = RateLimiter.of("localSaturated", SATURATED_CONFIG);
+        inProcessSaturated = new LeasedRateLimiter("inProcessSaturated", SATURATED_CONFIG, coordinator, leaseSize);
+        fileSaturated = new LeasedRateLimiter("fileSaturated", SATURATED_CONFIG, fileCoordinator, leaseSize);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileCoordinator.close();
+    }
+
+    @Benchmark
+    public boolean local() {
+        return local.acquirePermission();
+    }
+
+    @Benchmark
+    public boolean leasedInProcess() {
+        return inProcess.acquirePermission();
+    }
+
+    @Benchmark
+    public boolean leasedFile() {
+        return file.acquirePermission();
+    }
+
+    @Benchmark
+    public boolean localSaturated() {
+        return localSaturated.acquirePermission();
+    }
+
+    @Benchmark
+    public boolean leasedInProcessSaturated() {
+        return inProcessSaturated.acquirePermission();
+    }
+
+    @Benchmark
+    public boolean leasedFileSaturated() {
+        return fileSaturated.acquirePermission();
+    }
+}
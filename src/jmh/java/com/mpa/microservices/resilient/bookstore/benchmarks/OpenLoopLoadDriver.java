@@ -0,0 +1,317 @@
+package com.mpa.microservices.resilient.bookstore.benchmarks;
+
+import com.mpa.microservices.resilient.bookstore.RecommendationsClient;
+import com.mpa.microservices.resilient.bookstore.admission.AdmissionControlFilter;
+import com.mpa.microservices.resilient.bookstore.admission.AdmissionController;
+import com.mpa.microservices.resilient.bookstore.admission.Priority;
+import com.mpa.microservices.resilient.bookstore.batching.MicroBatcher;
+import com.mpa.microservices.resilient.bookstore.batching.OrdersHistoryBatcher;
+import com.mpa.microservices.resilient.bookstore.hedging.Hedger;
+import com.mpa.microservices.resilient.bookstore.hedging.HedgerRegistry;
+import com.mpa.microservices.resilient.bookstore.isolation.IsolationProperties.Mode;
+import com.mpa.microservices.resilient.bookstore.isolation.OrdersHistoryIsolation;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveConcurrencyLimiter;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveLimiterRegistry;
+import com.mpa.microservices.resilient.bookstore.metrics.RecommendationsMetrics;
+import com.mpa.microservices.resilient.bookstore.standin.OrdersHistoryStandIn;
+import com.mpa.microservices.resilient.bookstore.standin.OrdersHistoryStandInProperties;
+import com.mpa.microservices.resilient.bookstore.tenant.StripedLruRegistry;
+import com.mpa.microservices.resilient.bookstore.tenant.TenantGuardsRegistry;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+//Open-loop capacity test of our own endpoints, with order-history-service replaced by the embedded stand-in.
+// Requests are sent at a fixed arrival rate whether or not earlier ones completed, and latency is measured
+// from each request's scheduled start, so a stalled service shows up as latency instead of as less load.
+//
+// mvn -Pbenchmarks test-compile exec:exec \
+//     -Dbenchmarks.main=com.mpa.microservices.resilient.bookstore.benchmarks.OpenLoopLoadDriver \
+//     -Dbenchmarks.args="--load.rate=500 --recommendations.stand-in.endpoints.ordersHistoryCB.errorRate=0.5"
+//
+// --load.rate         requests per second over all endpoints (200)
+// --load.endpoints    comma separated, requests go round robin (/recommendations/withCB,/ratelimiter/{user},
+//                     /reactive/recommendations/withCB)
+// --load.users        {user} in an endpoint is replaced by a random id below this (1000)
+// --load.warmup       not counted in the summary (5s)
+// --load.duration     measured (30s)
+// --load.timeout      a request without a response by then counts as failed (10s)
+// --recommendations.stand-in.*   faults of the stand-in and what it offers (Smile, gzip, ETags), see
+//                                OrdersHistoryStandInProperties
+// everything else is passed on to the application, e.g. resilience4j or recommendations.cache settings
+public class OpenLoopLoadDriver {
+
+    private static final List<String> DEFAULT_ENDPOINTS = Arrays.asList("/recommendations/withCB",
+            "/ratelimiter/{user}", "/reactive/recommendations/withCB");
+
+    private final int rate;
+    private final int users;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration timeout;
+    private final List<EndpointStats> endpoints = new ArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConfigurableApplicationContext context;
+    private final OrdersHistoryStandIn standIn;
+    private final HttpClient httpClient;
+
+    private long startNanos;
+
+    private OpenLoopLoadDriver(Binder binder, ConfigurableApplicationContext context, OrdersHistoryStandIn standIn) {
+        this.rate = binder.bind("load.rate", Integer.class).orElse(200);
+        this.users = binder.bind("load.users", Integer.class).orElse(1000);
+        this.warmup = binder.bind("load.warmup", Duration.class).orElse(Duration.ofSeconds(5));
+        this.duration = binder.bind("load.duration", Duration.class).orElse(Duration.ofSeconds(30));
+        this.timeout = binder.bind("load.timeout", Duration.class).orElse(Duration.ofSeconds(10));
+        for (String path : binder.bind("load.endpoints", Bindable.listOf(String.class)).orElse(DEFAULT_ENDPOINTS)) {
+            endpoints.add(new EndpointStats(path));
+        }
+        this.context = context;
+        this.standIn = standIn;
+        String port = context.getEnvironment().getProperty("local.server.port");
+        //enough connections that the client never queues, queueing here would hide the service's own latency
+        this.httpClient = HttpClient.create(ConnectionProvider.elastic("load-driver"))
+                .baseUrl("http://localhost:" + port);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Binder binder = new Binder(ConfigurationPropertySources.from(new SimpleCommandLinePropertySource(args)));
+        OrdersHistoryStandInProperties standInProperties = binder
+                .bind("recommendations.stand-in", OrdersHistoryStandInProperties.class)
+                .orElseGet(OrdersHistoryStandInProperties::new);
+        standInProperties.setPort(0);
+        try (OrdersHistoryStandIn standIn = new OrdersHistoryStandIn(standInProperties)) {
+            standIn.start();
+            List<String> applicationArgs = new ArrayList<>(Arrays.asList(args));
+            applicationArgs.add("--order-history-service.url=" + standIn.getBaseUrl());
+            applicationArgs.add("--server.port=0");
+            if (!binder.bind("logging.level.root", String.class).isBound()) {
+                //failing calls log stack traces, which would bury the per-second report
+                applicationArgs.add("--logging.level.root=OFF");
+            }
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(RecommendationsClient.class)
+                    .run(applicationArgs.toArray(new String[0]))) {
+                new OpenLoopLoadDriver(binder, context, standIn).run();
+            }
+        }
+    }
+
+    private void run() throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        startNanos = System.nanoTime();
+        long endNanos = startNanos + warmup.toNanos() + duration.toNanos();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(this::report, 1, 1, TimeUnit.SECONDS);
+        long next = startNanos;
+        for (int i = 0; next < endNanos; i++, next += intervalNanos) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(endpoints.get(i % endpoints.size()), next);
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        reporter.shutdown();
+        reporter.awaitTermination(1, TimeUnit.SECONDS);
+        report();
+        summary();
+    }
+
+    private void send(EndpointStats stats, long scheduledNanos) {
+        inFlight.incrementAndGet();
+        httpClient.get()
+                .uri(stats.path.replace("{user}", String.valueOf(ThreadLocalRandom.current().nextInt(users))))
+                .responseSingle((response, body) -> body.asByteArray().then(Mono.just(response.status().code())))
+                .timeout(timeout)
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .subscribe(status -> stats.completed(scheduledNanos, status),
+                        error -> stats.failed(scheduledNanos));
+    }
+
+    private void report() {
+        long elapsedSeconds = Math.round((System.nanoTime() - startNanos) / 1e9);
+        boolean measured = elapsedSeconds > warmup.getSeconds();
+        StringBuilder line = new StringBuilder(String.format("[%4ds]%s", elapsedSeconds, measured ? "" : " warmup"));
+        for (EndpointStats stats : endpoints) {
+            Histogram interval = stats.interval(measured);
+            line.append(String.format("%n  %-36s %6d/s  p50 %8.2fms  p99 %8.2fms  non-2xx %5d  failed %5d",
+                    stats.path, interval.getTotalCount(), millis(interval.getValueAtPercentile(50)),
+                    millis(interval.getValueAtPercentile(99)), stats.lastNon2xx, stats.lastFailed));
+        }
+        line.append(String.format("%n  %s", resilienceState()));
+        System.out.println(line);
+    }
+
+    private String resilienceState() {
+        StringBuilder state = new StringBuilder("breakers");
+        for (CircuitBreaker circuitBreaker : context.getBean(CircuitBreakerRegistry.class).getAllCircuitBreakers()) {
+            state.append(String.format(" %s=%s(%d not permitted)", circuitBreaker.getName(), circuitBreaker.getState(),
+                    circuitBreaker.getMetrics().getNumberOfNotPermittedCalls()));
+        }
+        state.append("  rate limiters");
+        for (RateLimiter rateLimiter : context.getBean(RateLimiterRegistry.class).getAllRateLimiters()) {
+            state.append(String.format(" %s=%d permits/%d waiting", rateLimiter.getName(),
+                    rateLimiter.getMetrics().getAvailablePermissions(),
+                    rateLimiter.getMetrics().getNumberOfWaitingThreads()));
+        }
+        state.append("  bulkheads");
+        if (context.getBean(OrdersHistoryIsolation.class).getMode() == Mode.THREAD_POOL) {
+            for (ThreadPoolBulkhead bulkhead : context.getBean(ThreadPoolBulkheadRegistry.class).getAllBulkheads()) {
+                state.append(String.format(" %s=%d threads/%d queued", bulkhead.getName(),
+                        bulkhead.getMetrics().getThreadPoolSize(), bulkhead.getMetrics().getQueueDepth()));
+            }
+        } else {
+            for (Bulkhead bulkhead : context.getBean(BulkheadRegistry.class).getAllBulkheads()) {
+                state.append(String.format(" %s=%d free", bulkhead.getName(),
+                        bulkhead.getMetrics().getAvailableConcurrentCalls()));
+            }
+        }
+        state.append("  adaptive");
+        for (AdaptiveConcurrencyLimiter limiter : context.getBean(AdaptiveLimiterRegistry.class).getAllLimiters()) {
+            state.append(String.format(" %s=%d/%d", limiter.getName(), limiter.getInFlight(), limiter.getLimit()));
+        }
+        MicroBatcher<?, ?> batcher = context.getBean(OrdersHistoryBatcher.class).getBatcher();
+        state.append(String.format("  batches %d (%d users, %d requests)", batcher.getBatches(), batcher.getKeys(),
+                batcher.getRequests()));
+        StripedLruRegistry<?> tenants = context.getBean(TenantGuardsRegistry.class).getRegistry();
+        state.append(String.format("  tenants %d (%d evicted, %d expired)", tenants.size(), tenants.getEvicted(),
+                tenants.getExpired()));
+        state.append("  hedges");
+        for (Hedger hedger : context.getBean(HedgerRegistry.class).getAllHedgers()) {
+            if (hedger.isEnabled()) {
+                state.append(String.format(" %s=%d/%d calls (%d won, %d denied, delay %.1fms)", hedger.getName(),
+                        hedger.getHedged(), hedger.getCalls(), hedger.getHedgeWins(), hedger.getBudgetDenied(),
+                        hedger.getDelayNanos() / 1e6));
+            }
+        }
+        AdmissionController admission = context.getBean(AdmissionControlFilter.class).getAdmissionController();
+        state.append(String.format("  admission %d in flight/%d queued (%d timed out, %d shed)",
+                admission.getInFlight(), admission.getQueued(), admission.getTimedOut(), admission.getShed()));
+        for (Priority priority : Priority.values()) {
+            if (admission.isOverloaded(priority)) {
+                state.append(" overloaded ").append(priority);
+            }
+        }
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        state.append(String.format("  fallbacks cache=%.0f default=%.0f",
+                count(meterRegistry, "cache"), count(meterRegistry, "default")));
+        return state.toString();
+    }
+
+    private void summary() {
+        //requests sent during the measured duration, including the ones that completed while draining
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.println(String.format("%nsummary over %.0fs at %d req/s offered", seconds, rate));
+        for (EndpointStats stats : endpoints) {
+            Histogram total = stats.total;
+            System.out.println(String.format("  %-36s %8.1f/s  2xx %7d  non-2xx %7d  failed %7d", stats.path,
+                    total.getTotalCount() / seconds, stats.total2xx,
+                    stats.totalNon2xx, stats.totalFailed));
+            System.out.println(String.format("  %-36s p50 %.2fms  p90 %.2fms  p99 %.2fms  p99.9 %.2fms  max %.2fms", "",
+                    millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(90)),
+                    millis(total.getValueAtPercentile(99)), millis(total.getValueAtPercentile(99.9)),
+                    millis(total.getMaxValue())));
+        }
+        System.out.println(String.format("  stand-in requests %d  errors %d  slow bodies %d  hangs %d",
+                standIn.getRequests(), standIn.getErrors(), standIn.getSlowBodies(), standIn.getHangs()));
+        System.out.println(String.format("  stand-in not modified %d  body bytes %d (%.0f per request)",
+                standIn.getNotModified(), standIn.getBodyBytes(),
+                standIn.getBodyBytes() / (double) Math.max(1, standIn.getRequests())));
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        meterRegistry.find("recommendations.circuitbreaker.transitions").counters().stream()
+                .filter(counter -> counter.count() > 0)
+                .forEach(counter -> System.out.println(String.format("  breaker %s %s -> %s: %.0f",
+                        counter.getId().getTag("name"), counter.getId().getTag("from"),
+                        counter.getId().getTag("to"), counter.count())));
+    }
+
+    private static double count(MeterRegistry meterRegistry, String source) {
+        Counter counter = meterRegistry.find(RecommendationsMetrics.FALLBACK_COUNTER).tag("source", source).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class EndpointStats {
+
+        private final String path;
+        private final Recorder latency = new Recorder(3);
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder non2xx = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final Histogram total = new Histogram(3);
+
+        private long lastNon2xx;
+        private long lastFailed;
+        private long total2xx;
+        private long totalNon2xx;
+        private long totalFailed;
+
+        private EndpointStats(String path) {
+            this.path = path;
+        }
+
+        private void completed(long scheduledNanos, int status) {
+            (status >= 200 && status < 300 ? ok : non2xx).increment();
+            latency.recordValue(micros(scheduledNanos));
+        }
+
+        private void failed(long scheduledNanos) {
+            failed.increment();
+            latency.recordValue(micros(scheduledNanos));
+        }
+
+        //called once per second by the reporter only
+        private Histogram interval(boolean measured) {
+            Histogram interval = latency.getIntervalHistogram();
+            long last2xx = ok.sumThenReset();
+            lastNon2xx = non2xx.sumThenReset();
+            lastFailed = failed.sumThenReset();
+            if (measured) {
+                total.add(interval);
+                total2xx += last2xx;
+                totalNon2xx += lastNon2xx;
+                totalFailed += lastFailed;
+            }
+            return interval;
+        }
+
+        private static long micros(long scheduledNanos) {
+            return Math.max(0, (System.nanoTime() - scheduledNanos) / 1000);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.mpa.microservices.resilient.bookstore.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mpa.microservices.resilient.bookstore.clients.ContentTypeDecoder;
+import com.mpa.microservices.resilient.bookstore.clients.FirstElementsDecoder;
+import com.mpa.microservices.resilient.bookstore.clients.OrdersHistoryClient;
+import com.mpa.microservices.resilient.bookstore.clients.PayloadEncoding;
+import com.mpa.microservices.resilient.bookstore.conditional.ConditionalGetCache;
+import com.mpa.microservices.resilient.bookstore.conditional.ConditionalGetFeignClient;
+import com.mpa.microservices.resilient.bookstore.config.OrdersHistoryHttpClientProperties;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.codec.Decoder;
+import feign.jackson.JacksonDecoder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.AbstractJackson2Decoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import reactor.core.publisher.Flux;
+
+//Decoding an order history of `orders` books to recommend the first two, the full decode every path used to do
+// against the streaming one. Run with -prof gc, gc.alloc.rate.norm is the allocation per decoded response.
+// The reactive body arrives in CHUNK sized buffers, as it would off the socket. encoding is what order-history-service
+// answered in, JSON or Smile as negotiated now; the body sizes, plain and gzipped, are printed once they are built.
+// feignFirstElementsConditionalGet decodes a 200 carrying an ETag through ConditionalGetFeignClient, as every
+// response of the stand-in is with conditional GET on.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrdersDecodingBenchmark {
+
+    private static final int CHUNK = 8192;
+    private static final Type ORDERS_TYPE = ResolvableType.forClassWithGenerics(List.class, String.class).getType();
+
+    @Param({"10", "10000", "100000"})
+    public int orders;
+
+    @Param({"JSON", "SMILE"})
+    public String encoding;
+
+    private byte[] body;
+    private List<byte[]> chunks;
+    private Request request;
+    private Map<String, Collection<String>> headers;
+    private Map<String, Collection<String>> etagHeaders;
+    private MediaType mediaType;
+    private Decoder jacksonDecoder;
+    private FirstElementsDecoder firstElementsDecoder;
+    private AbstractJackson2Decoder webFluxDecoder;
+    private DefaultDataBufferFactory bufferFactory;
+    private ConditionalGetFeignClient conditionalGetClient;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        boolean smile = "SMILE".equals(encoding);
+        List<String> history = new ArrayList<>(orders);
+        for (int i = 1; i <= orders; i++) {
+            history.add("Java Book " + i);
+        }
+        body = (smile ? smileMapper : objectMapper).writeValueAsBytes(history);
+        System.out.printf("%n%s body of %d orders: %d bytes, %d gzipped%n", encoding, orders, body.length,
+                gzipped(body).length);
+        mediaType = MediaType.parseMediaType(smile ? PayloadEncoding.SMILE : PayloadEncoding.JSON);
+        headers = Collections.singletonMap("Content-Type", Collections.singletonList(mediaType.toString()));
+        etagHeaders = new LinkedHashMap<>(headers);
+        etagHeaders.put("ETag", Collections.singletonList("\"history-v1\""));
+        chunks = new ArrayList<>();
+        for (int from = 0; from < body.length; from += CHUNK) {
+            chunks.add(Arrays.copyOfRange(body, from, Math.min(body.length, from + CHUNK)));
+        }
+        //the decoder finds @FirstElements through the request's method metadata, as it does behind the proxy
+        MethodMetadata getOrdersForCB = new SpringMvcContract().parseAndValidateMetadata(OrdersHistoryClient.class)
+                .stream()
+                .filter(metadata -> metadata.configKey().startsWith("OrdersHistoryClient#getOrdersForCB"))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        RequestTemplate template = new RequestTemplate();
+        template.methodMetadata(getOrdersForCB);
+        request = Request.create(Request.HttpMethod.GET, "http://localhost/ordersHistoryCB", Collections.emptyMap(),
+                null, StandardCharsets.UTF_8, template);
+        jacksonDecoder = new ContentTypeDecoder(new JacksonDecoder(objectMapper), smileMapper);
+        firstElementsDecoder = new FirstElementsDecoder(objectMapper.getFactory(), smileMapper.getFactory(),
+                jacksonDecoder);
+        webFluxDecoder = smile ? new Jackson2SmileDecoder(smileMapper) : new Jackson2JsonDecoder(objectMapper);
+        webFluxDecoder.setMaxInMemorySize(-1);
+        bufferFactory = new DefaultDataBufferFactory();
+        conditionalGetClient = new ConditionalGetFeignClient((ignored, options) -> Response.builder()
+                .status(200)
+                .headers(etagHeaders)
+                .request(request)
+                .body(body)
+                .build(), new ConditionalGetCache(new OrdersHistoryHttpClientProperties()));
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<String> feignFullDecode() throws IOException {
+        return ((List<String>) jacksonDecoder.decode(response(), ORDERS_TYPE)).subList(0, 2);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<String> feignFirstElements() throws IOException {
+        return (List<String>) firstElementsDecoder.decode(response(), ORDERS_TYPE);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<String> feignFirstElementsConditionalGet() throws IOException {
+        return (List<String>) firstElementsDecoder.decode(conditionalGetClient.execute(request, null), ORDERS_TYPE);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<String> webFluxFullDecode() {
+        return ((List<String>) webFluxDecoder.decodeToMono(dataBuffers(), ResolvableType.forType(ORDERS_TYPE),
+                mediaType, Collections.emptyMap()).block()).subList(0, 2);
+    }
+
+    @Benchmark
+    public List<String> webFluxTakeFirst() {
+        return webFluxDecoder.decode(dataBuffers(), ResolvableType.forClass(JsonNode.class),
+                mediaType, Collections.emptyMap())
+                .take(2)
+                .map(node -> ((JsonNode) node).asText())
+                .collectList()
+                .block();
+    }
+
+    private Response response() {
+        return Response.builder()
+                .status(200)
+                .headers(headers)
+                .request(request)
+                .body(body)
+                .build();
+    }
+
+    private Flux<DataBuffer> dataBuffers() {
+        return Flux.fromIterable(chunks).map(bufferFactory::wrap);
+    }
+
+    private static byte[] gzipped(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+package com.mpa.microservices.resilient.bookstore.benchmarks;
+
+import com.mpa.microservices.resilient.bookstore.engine.CoOccurrenceIndex;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Co-occurrence index over a catalogue of `items` books (1M by default) bought by items / 4 users. User u owns books
+// 4u..4u+3, so every book is in the index, plus 4 more books of the same CLUSTER consecutive books, so books of a
+// cluster co-occur. The index footprint is printed once it is built.
+//
+// recommend:         top 10 for a random user
+// updateUnchanged:   a user's history comes back as it was, the read locked fast path
+// updateNewOrder:    a user buys another book of the cluster, the index keeps booksPerUser per user so the oldest
+//                    book's pairs are taken back out and the index does not grow during the run
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class RecommendationEngineBenchmark {
+
+    private static final int CLUSTER = 50;
+    private static final int OWN_BOOKS = 4;
+
+    @Param({"1000000"})
+    public int items;
+
+    @Param({"8"})
+    public int booksPerUser;
+
+    private CoOccurrenceIndex index;
+    private String[] users;
+    private String[] books;
+    private List<List<String>> histories;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        books = new String[items];
+        for (int book = 0; book < items; book++) {
+            books[book] = "Java Book " + book;
+        }
+        users = new String[items / OWN_BOOKS];
+        histories = new ArrayList<>(users.length);
+        index = new CoOccurrenceIndex(booksPerUser);
+        long start = System.nanoTime();
+        for (int user = 0; user < users.length; user++) {
+            users[user] = "user-" + user;
+            List<String> history = new ArrayList<>(booksPerUser);
+            for (int book = OWN_BOOKS * user; book < OWN_BOOKS * (user + 1); book++) {
+                history.add(books[book]);
+            }
+            while (history.size() < booksPerUser) {
+                String book = books[clusterBook(OWN_BOOKS * user, random.nextInt(CLUSTER))];
+                if (!history.contains(book)) {
+                    history.add(book);
+                }
+            }
+            index.update(users[user], history);
+            histories.add(history);
+        }
+        System.out.printf("%nindex built in %d ms: %s%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                index.footprint());
+    }
+
+    @Benchmark
+    public List<String> recommend() {
+        return index.recommend(users[ThreadLocalRandom.current().nextInt(users.length)], 10);
+    }
+
+    @Benchmark
+    public boolean updateUnchanged() {
+        int user = ThreadLocalRandom.current().nextInt(users.length);
+        return index.update(users[user], histories.get(user));
+    }
+
+    @Benchmark
+    public boolean updateNewOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int user = random.nextInt(users.length);
+        String book = books[clusterBook(OWN_BOOKS * user, random.nextInt(CLUSTER))];
+        return index.update(users[user], Collections.singletonList(book));
+    }
+
+    private int clusterBook(int book, int offset) {
+        return Math.min(items - 1, book / CLUSTER * CLUSTER + offset);
+    }
+}
@@ -0,0 +1,230 @@
+package com.mpa.microservices.resilient.bookstore.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+//Startup of the jar the fast-startup profile packages, in each mode of that profile, measured on fresh JVMs: the time
+// from launching the JVM to the first 2xx of path, which includes creating what lazy initialization put off, and the
+// resident set size at that moment. Every run serves order-history-service from the stand-in profile, so the first
+// request can succeed without the real dependency. The class-data-sharing archives are recorded first, one per mode
+// using one, by a training run of that mode.
+//
+// mvn -Pfast-startup package && mvn -Pbenchmarks test-compile exec:exec \
+//     -Dbenchmarks.main=com.mpa.microservices.resilient.bookstore.benchmarks.StartupBenchmark \
+//     -Dbenchmarks.args="--startup.runs=10"
+//
+// --startup.jar        the application, run with -jar: a plain jar whose manifest puts its dependencies on the class
+//                      path, CDS doesn't archive from directories or nested jars (target/recommendations-service.jar)
+// --startup.modes      comma separated, out of DEFAULT, LAZY (fast-startup profile), CDS (archive) and FAST (both)
+//                      (all of them)
+// --startup.runs       JVMs started per mode, the summary shows median, min and max (5)
+// --startup.path       the request that has to succeed (/recommendations/withCB)
+// --startup.jvm-args   space separated, passed to every JVM, e.g. -Xmx256m (none)
+// --startup.directory  archives and the output of the last run of each mode (target/startup-benchmark)
+// --startup.timeout    a JVM not serving by then fails the benchmark (2m)
+// Linux only, the resident set size is read from /proc.
+public class StartupBenchmark {
+
+    private static final int POLL_MILLIS = 5;
+    private static final int REQUEST_TIMEOUT_MILLIS = 10000;
+
+    private final File jar;
+    private final List<Mode> modes = new ArrayList<>();
+    private final int runs;
+    private final String path;
+    private final List<String> jvmArgs;
+    private final File directory;
+    private final Duration timeout;
+
+    private StartupBenchmark(Binder binder) {
+        this.jar = new File(binder.bind("startup.jar", String.class).orElse("target/recommendations-service.jar"));
+        modes.addAll(binder.bind("startup.modes", Bindable.listOf(Mode.class)).orElse(Arrays.asList(Mode.values())));
+        this.runs = binder.bind("startup.runs", Integer.class).orElse(5);
+        this.path = binder.bind("startup.path", String.class).orElse("/recommendations/withCB");
+        this.jvmArgs = binder.bind("startup.jvm-args", String.class)
+                .map(args -> Arrays.asList(args.trim().split("\\s+")))
+                .orElse(Collections.emptyList());
+        this.directory = new File(binder.bind("startup.directory", String.class).orElse("target/startup-benchmark"));
+        this.timeout = binder.bind("startup.timeout", Duration.class).orElse(Duration.ofMinutes(2));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Binder binder = new Binder(ConfigurationPropertySources.from(new SimpleCommandLinePropertySource(args)));
+        new StartupBenchmark(binder).run();
+    }
+
+    private void run() throws IOException, InterruptedException {
+        if (!jar.isFile()) {
+            throw new IllegalStateException(jar + " not found, mvn -Pfast-startup package builds it");
+        }
+        Files.createDirectories(directory.toPath());
+        for (Mode mode : modes) {
+            if (mode.cds) {
+                record(mode);
+            }
+        }
+        List<String> summary = new ArrayList<>();
+        summary.add(String.format("%-8s %6s %10s %10s %10s %10s", "mode", "runs", "first 2xx", "min", "max",
+                "RSS"));
+        for (Mode mode : modes) {
+            long[] millis = new long[runs];
+            long[] rssKb = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long[] measured = measure(mode);
+                millis[run] = measured[0];
+                rssKb[run] = measured[1];
+                System.out.printf("%s run %d: first 2xx after %d ms, RSS %d MB%n", mode, run + 1, measured[0],
+                        measured[1] / 1024);
+            }
+            Arrays.sort(millis);
+            Arrays.sort(rssKb);
+            summary.add(String.format("%-8s %6d %8d ms %7d ms %7d ms %7d MB", mode, runs, millis[runs / 2],
+                    millis[0], millis[runs - 1], rssKb[runs / 2] / 1024));
+        }
+        System.out.println();
+        summary.forEach(System.out::println);
+    }
+
+    //the training run warms recommendations.startup.trainingPaths up and exits, the JVM writes the archive then
+    private void record(Mode mode) throws IOException, InterruptedException {
+        File archive = archive(mode);
+        Files.deleteIfExists(archive.toPath());
+        List<String> command = command(mode, "-XX:ArchiveClassesAtExit=" + archive, freePort(), freePort());
+        command.add("--recommendations.startup.training-run=true");
+        Process process = start(command, mode, "training");
+        if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException(mode + " training run did not exit within " + timeout);
+        }
+        if (!archive.isFile()) {
+            throw new IllegalStateException(mode + " training run wrote no archive, see " + log(mode, "training"));
+        }
+        System.out.printf("%s: recorded %s (%d MB)%n", mode, archive, archive.length() / (1024 * 1024));
+    }
+
+    //milliseconds to the first 2xx of path and the resident set size in kB at that moment
+    private long[] measure(Mode mode) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = command(mode, mode.cds ? "-XX:SharedArchiveFile=" + archive(mode) : null, port,
+                freePort());
+        long start = System.nanoTime();
+        Process process = start(command, mode, "run");
+        try {
+            URL url = new URL("http://localhost:" + port + path);
+            long deadline = start + timeout.toNanos();
+            while (!succeeds(url)) {
+                if (!process.isAlive() || System.nanoTime() > deadline) {
+                    throw new IllegalStateException(mode + " never answered " + path + " with 2xx, see "
+                            + log(mode, "run"));
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new long[] {millis, residentSetKb(process)};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private List<String> command(Mode mode, String archiveOption, int port, int standInPort) {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(jvmArgs);
+        if (archiveOption != null) {
+            command.add(archiveOption);
+        }
+        command.add("-jar");
+        command.add(jar.getPath());
+        command.add("--spring.profiles.active=standin" + (mode.lazy ? ",fast-startup" : ""));
+        command.add("--server.port=" + port);
+        command.add("--recommendations.stand-in.port=" + standInPort);
+        command.add("--order-history-service.url=http://localhost:" + standInPort + "/");
+        command.add("--spring.main.banner-mode=off");
+        return command;
+    }
+
+    private Process start(List<String> command, Mode mode, String run) throws IOException {
+        File log = log(mode, run);
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+    }
+
+    private File archive(Mode mode) {
+        return new File(directory, mode.name().toLowerCase() + ".jsa");
+    }
+
+    private File log(Mode mode, String run) {
+        return new File(directory, mode.name().toLowerCase() + "-" + run + ".log");
+    }
+
+    private static boolean succeeds(URL url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(REQUEST_TIMEOUT_MILLIS);
+            connection.setReadTimeout(REQUEST_TIMEOUT_MILLIS);
+            int status = connection.getResponseCode();
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                body.readAllBytes();
+                body.close();
+            }
+            return status / 100 == 2;
+        } catch (IOException e) {
+            //not listening yet
+            return false;
+        }
+    }
+
+    private static long residentSetKb(Process process) throws IOException {
+        Path status = new File("/proc/" + process.pid() + "/status").toPath();
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        throw new IllegalStateException("no VmRSS in " + status);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    public enum Mode {
+
+        DEFAULT(false, false),
+        LAZY(true, false),
+        CDS(false, true),
+        FAST(true, true);
+
+        private final boolean lazy;
+        private final boolean cds;
+
+        Mode(boolean lazy, boolean cds) {
+            this.lazy = lazy;
+            this.cds = cds;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.mpa.microservices.resilient.bookstore.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//In-process order-history-service stand-in, so benchmarks measure our client side and not the network.
+// /exception answers successfully as well, so every decoration path is measured on the same healthy call.
+public class StubOrdersHistoryServer implements AutoCloseable {
+
+    private static final byte[] ORDERS = "[\"Java Book 1\",\"Java Book 2\",\"Java Book 3\",\"Java Book 4\"]"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    static {
+        //headers and body are written separately, without TCP_NODELAY every response waits for a delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    public StubOrdersHistoryServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 512);
+        executor = Executors.newFixedThreadPool(16);
+        server.setExecutor(executor);
+        server.createContext("/ordersHistoryCB", this::orders);
+        server.createContext("/ordersHistoryRL", this::orders);
+        server.createContext("/exception", this::orders);
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void orders(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, ORDERS.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(ORDERS);
+        }
+    }
+}
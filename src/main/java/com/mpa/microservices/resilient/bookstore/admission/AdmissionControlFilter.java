@@ -0,0 +1,128 @@
+package com.mpa.microservices.resilient.bookstore.admission;
+
+import com.mpa.microservices.resilient.bookstore.admission.AdmissionProperties.Route;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+//Inbound admission control in front of every controller. A request turned away gets 503 with Retry-After before any
+// work is done for it. Asynchronous requests (Mono results) hold their slot until the response is complete, not
+// just until the request thread is given back.
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+    private AdmissionProperties admissionProperties;
+    private AdmissionController admissionController;
+    private String retryAfterSeconds;
+
+    public AdmissionControlFilter(AdmissionProperties admissionProperties) {
+        this.admissionProperties = admissionProperties;
+        this.admissionController = new AdmissionController(admissionProperties.getMaxInFlight(),
+                admissionProperties.getNormalShare(), admissionProperties.getLowShare(),
+                admissionProperties.getMaxQueued(), admissionProperties.getTarget().toNanos(),
+                admissionProperties.getInterval().toNanos());
+        this.retryAfterSeconds = String.valueOf(Math.max(1, admissionProperties.getRetryAfter().getSeconds()));
+    }
+
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!admissionProperties.isEnabled()) {
+            return true;
+        }
+        String path = urlPathHelper.getPathWithinApplication(request);
+        return admissionProperties.getExempt().stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean admitted;
+        try {
+            admitted = admissionController.acquire(priorityOf(urlPathHelper.getPathWithinApplication(request)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(admissionController));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                admissionController.release();
+            }
+        }
+    }
+
+    private Priority priorityOf(String path) {
+        for (Route route : admissionProperties.getRoutes()) {
+            if (pathMatcher.match(route.getPattern(), path)) {
+                return route.getPriority();
+            }
+        }
+        return Priority.NORMAL;
+    }
+
+    private static final class ReleasingListener implements AsyncListener {
+
+        private final AdmissionController admissionController;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReleasingListener(AdmissionController admissionController) {
+            this.admissionController = admissionController;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            //listeners are dropped when async processing starts again, stay for the final completion
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                admissionController.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.mpa.microservices.resilient.bookstore.admission;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Admits at most maxInFlight requests at once, of which NORMAL ones may take normalShare and LOW ones lowShare, so
+// slow low priority routes can't take the slots high priority ones need. Later requests wait for a slot, highest
+// priority first, and are turned away when they have waited too long: a fast 503 instead of a slow timeout.
+// How long is too long follows CoDel: a queue whose shortest wait over a whole interval stayed above target is a
+// standing queue that only adds latency, so waits are then cut to target and LOW priority requests are refused
+// without waiting. A queue that drains at least once per interval is a burst and may hold requests for an interval.
+public class AdmissionController {
+
+    private static final Comparator<Waiter> ORDER = Comparator.<Waiter>comparingInt(waiter -> waiter.priority.ordinal())
+            .thenComparingLong(waiter -> waiter.sequence);
+
+    private final int[] maxInFlight = new int[Priority.values().length];
+    private final int maxQueued;
+    private final long targetNanos;
+    private final long intervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    //guarded by lock
+    private final PriorityQueue<Waiter> waiting = new PriorityQueue<>(ORDER);
+    private int inFlight;
+    private long sequence;
+    //CoDel state per priority: high priority requests admitted at once must not hide a standing queue of low ones
+    private final long[] intervalStart = new long[Priority.values().length];
+    private final long[] minWaitInInterval = new long[Priority.values().length];
+    private final boolean[] overloaded = new boolean[Priority.values().length];
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    public AdmissionController(int maxInFlight, double normalShare, double lowShare, int maxQueued, long targetNanos,
+            long intervalNanos) {
+        this.maxInFlight[Priority.HIGH.ordinal()] = maxInFlight;
+        this.maxInFlight[Priority.NORMAL.ordinal()] = Math.max(1, (int) (maxInFlight * normalShare));
+        this.maxInFlight[Priority.LOW.ordinal()] = Math.max(1, (int) (maxInFlight * lowShare));
+        this.maxQueued = maxQueued;
+        this.targetNanos = targetNanos;
+        this.intervalNanos = intervalNanos;
+        Arrays.fill(intervalStart, System.nanoTime());
+        Arrays.fill(minWaitInInterval, Long.MAX_VALUE);
+    }
+
+    //true once admitted, the caller must then release(); false when the request is turned away
+    public boolean acquire(Priority priority) throws InterruptedException {
+        long arrival = System.nanoTime();
+        int level = priority.ordinal();
+        lock.lock();
+        try {
+            //waiters of the same or a higher priority would have got the slot already
+            if (inFlight < maxInFlight[level]) {
+                inFlight++;
+                onWait(level, 0, arrival);
+                admitted.increment();
+                return true;
+            }
+            if (waiting.size() >= maxQueued || overloaded[level] && priority == Priority.LOW) {
+                shed.increment();
+                return false;
+            }
+            Waiter waiter = new Waiter(priority, sequence++, lock.newCondition());
+            waiting.add(waiter);
+            long remaining = overloaded[level] ? targetNanos : intervalNanos;
+            try {
+                while (!waiter.admitted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                if (!waiter.admitted) {
+                    waiting.remove(waiter);
+                    throw e;
+                }
+                //the slot was already handed over, keep it and the interrupt
+                Thread.currentThread().interrupt();
+            }
+            long now = System.nanoTime();
+            onWait(level, now - arrival, now);
+            if (!waiter.admitted) {
+                waiting.remove(waiter);
+                timedOut.increment();
+                return false;
+            }
+            admitted.increment();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            //the head has the highest priority, if it has to keep waiting so do the others
+            while (!waiting.isEmpty() && inFlight < maxInFlight[waiting.peek().priority.ordinal()]) {
+                Waiter next = waiting.poll();
+                next.admitted = true;
+                next.condition.signal();
+                inFlight++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isOverloaded(Priority priority) {
+        lock.lock();
+        try {
+            return overloaded[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+
+    //called with the lock held, for admitted and timed out requests alike
+    private void onWait(int level, long waitNanos, long now) {
+        minWaitInInterval[level] = Math.min(minWaitInInterval[level], waitNanos);
+        if (now - intervalStart[level] >= intervalNanos) {
+            overloaded[level] = minWaitInInterval[level] > targetNanos;
+            minWaitInInterval[level] = Long.MAX_VALUE;
+            intervalStart[level] = now;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final Priority priority;
+        private final long sequence;
+        private final Condition condition;
+        private boolean admitted;
+
+        private Waiter(Priority priority, long sequence, Condition condition) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+    }
+}
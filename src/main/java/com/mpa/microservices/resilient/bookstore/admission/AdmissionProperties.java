@@ -0,0 +1,133 @@
+package com.mpa.microservices.resilient.bookstore.admission;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+    //requests being processed at once, the rest wait in priority order
+    private int maxInFlight = 50;
+    //shares of maxInFlight NORMAL and LOW priority requests may take, HIGH ones may take all of it
+    private double normalShare = 0.8;
+    private double lowShare = 0.5;
+    //waiting requests hold a Tomcat thread, maxInFlight + maxQueued stays below its 200 so exempt routes get one
+    private int maxQueued = 100;
+    //CoDel: while the shortest wait of every interval stays above target, waiting requests are given target instead
+    // of interval before they are turned away and LOW priority ones are turned away at once
+    private Duration target = Duration.ofMillis(5);
+    private Duration interval = Duration.ofMillis(100);
+    private Duration retryAfter = Duration.ofSeconds(1);
+    //first matching pattern wins, unmatched routes are NORMAL
+    private List<Route> routes = new ArrayList<>();
+    //never queued nor turned away
+    private List<String> exempt = new ArrayList<>(Arrays.asList("/actuator/**"));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public double getNormalShare() {
+        return normalShare;
+    }
+
+    public void setNormalShare(double normalShare) {
+        this.normalShare = normalShare;
+    }
+
+    public double getLowShare() {
+        return lowShare;
+    }
+
+    public void setLowShare(double lowShare) {
+        this.lowShare = lowShare;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    public Duration getTarget() {
+        return target;
+    }
+
+    public void setTarget(Duration target) {
+        this.target = target;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<Route> routes) {
+        this.routes = routes;
+    }
+
+    public List<String> getExempt() {
+        return exempt;
+    }
+
+    public void setExempt(List<String> exempt) {
+        this.exempt = exempt;
+    }
+
+    public static class Route {
+
+        private String pattern;
+        private Priority priority = Priority.NORMAL;
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public void setPattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public void setPriority(Priority priority) {
+            this.priority = priority;
+        }
+    }
+}
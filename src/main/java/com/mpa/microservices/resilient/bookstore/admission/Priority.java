@@ -0,0 +1,6 @@
+package com.mpa.microservices.resilient.bookstore.admission;
+
+//Waiting requests are admitted highest priority first, LOW ones are the first turned away under overload
+public enum Priority {
+    HIGH, NORMAL, LOW
+}
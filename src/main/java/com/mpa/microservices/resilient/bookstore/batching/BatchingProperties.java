@@ -0,0 +1,52 @@
+package com.mpa.microservices.resilient.bookstore.batching;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.batching")
+public class BatchingProperties {
+
+    private int maxBatchSize = 50;
+    //how long the first request of a batch waits for others to join it
+    private Duration maxWait = Duration.ofMillis(10);
+    //one bulk call at a time: requests arriving while it waits for its propsRL permit form the next batch
+    private int maxInFlightBatches = 1;
+    //how long a request waits for its batch at most: maxWait (10ms), the propsRL permit (1s) and the 1.5s time limit
+    // of one bulk attempt, plus a backoff (1s at most) after an attempt that failed fast. Retries that would start
+    // after the last waiter gave up are not sent, so a batch holds its slot at most one attempt past its last waiter
+    private Duration maxBlock = Duration.ofSeconds(4);
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public int getMaxInFlightBatches() {
+        return maxInFlightBatches;
+    }
+
+    public void setMaxInFlightBatches(int maxInFlightBatches) {
+        this.maxInFlightBatches = maxInFlightBatches;
+    }
+
+    public Duration getMaxBlock() {
+        return maxBlock;
+    }
+
+    public void setMaxBlock(Duration maxBlock) {
+        this.maxBlock = maxBlock;
+    }
+}
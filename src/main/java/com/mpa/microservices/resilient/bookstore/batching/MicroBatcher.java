@@ -0,0 +1,208 @@
+package com.mpa.microservices.resilient.bookstore.batching;
+
+import com.mpa.microservices.resilient.bookstore.exceptions.CallTimedOut;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+//Collects keys until maxBatchSize keys are pending or the oldest has waited maxWait, then loads them all with one
+// bulk call and completes every waiting caller from its result. Callers asking for the same key share its slot.
+// At most maxInFlightBatches bulk calls run at a time; while they wait (e.g. for a rate limiter permit) the next
+// batch keeps growing, so a slow or rate limited bulk call means bigger batches, not more calls. A caller waits
+// maxBlock at most, a stalled batch fails it with CallTimedOut while the batch itself runs on. The loader is told
+// when the last caller of its batch gives up, so it can stop spending work nobody waits for.
+public class MicroBatcher<K, V> {
+
+    private final String name;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final int maxInFlightBatches;
+    private final long maxBlockNanos;
+    private final BulkLoader<K, V> bulkLoader;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+
+    private final Object lock = new Object();
+    private final Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    //when the latest caller asked for each pending key, it waits maxBlock from there
+    private final Map<K, Long> lastJoinedNanos = new HashMap<>();
+    private int inFlightBatches;
+    //bumped whenever a new window starts, so the timer of an already dispatched window is ignored
+    private long window;
+    private boolean windowElapsed;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder keys = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public MicroBatcher(String name, int maxBatchSize, long maxWaitNanos, int maxInFlightBatches, long maxBlockNanos,
+            BulkLoader<K, V> bulkLoader, ScheduledExecutorService scheduler, Executor executor) {
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWaitNanos;
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.maxBlockNanos = maxBlockNanos;
+        this.bulkLoader = bulkLoader;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    //keys missing from the bulk result complete with null
+    public CompletableFuture<V> submit(K key) {
+        requests.increment();
+        CompletableFuture<V> future;
+        Batch<K, V> batch;
+        synchronized (lock) {
+            lastJoinedNanos.put(key, System.nanoTime());
+            future = pending.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+            if (pending.size() == 1) {
+                long current = ++window;
+                windowElapsed = false;
+                scheduler.schedule(() -> onWindowElapsed(current), maxWaitNanos, TimeUnit.NANOSECONDS);
+            }
+            batch = takeBatch();
+        }
+        dispatch(batch);
+        return future;
+    }
+
+    public V get(K key) {
+        try {
+            return submit(key).get(maxBlockNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new CallTimedOut(name + " batch did not complete within " + Duration.ofNanos(maxBlockNanos));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getKeys() {
+        return keys.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    private void onWindowElapsed(long elapsedWindow) {
+        Batch<K, V> batch;
+        synchronized (lock) {
+            if (elapsedWindow != window) {
+                return;
+            }
+            windowElapsed = true;
+            batch = takeBatch();
+        }
+        dispatch(batch);
+    }
+
+    private void onBatchDone() {
+        Batch<K, V> batch;
+        synchronized (lock) {
+            inFlightBatches--;
+            batch = takeBatch();
+        }
+        dispatch(batch);
+    }
+
+    //called holding the lock
+    private Batch<K, V> takeBatch() {
+        boolean ready = windowElapsed || pending.size() >= maxBatchSize;
+        if (!ready || pending.isEmpty() || inFlightBatches >= maxInFlightBatches) {
+            return null;
+        }
+        Map<K, CompletableFuture<V>> waiters = new LinkedHashMap<>();
+        long lastJoined = Long.MIN_VALUE;
+        Iterator<Map.Entry<K, CompletableFuture<V>>> entries = pending.entrySet().iterator();
+        while (entries.hasNext() && waiters.size() < maxBatchSize) {
+            Map.Entry<K, CompletableFuture<V>> entry = entries.next();
+            waiters.put(entry.getKey(), entry.getValue());
+            entries.remove();
+            long joined = lastJoinedNanos.remove(entry.getKey());
+            if (lastJoined == Long.MIN_VALUE || joined - lastJoined > 0) {
+                lastJoined = joined;
+            }
+        }
+        inFlightBatches++;
+        //whatever is left has already waited, it goes out as soon as a batch slot frees up
+        if (pending.isEmpty()) {
+            window++;
+            windowElapsed = false;
+        }
+        return new Batch<>(waiters, lastJoined + maxBlockNanos);
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        if (batch == null) {
+            return;
+        }
+        batches.increment();
+        keys.add(batch.waiters.size());
+        try {
+            executor.execute(() -> load(batch));
+        } catch (RejectedExecutionException e) {
+            batch.waiters.values().forEach(future -> future.completeExceptionally(e));
+            onBatchDone();
+        }
+    }
+
+    private void load(Batch<K, V> batch) {
+        try {
+            Map<K, V> results = bulkLoader.load(batch.waiters.keySet(), batch.deadlineNanos);
+            batch.waiters.forEach((key, future) -> future.complete(results.get(key)));
+        } catch (Throwable e) {
+            batch.waiters.values().forEach(future -> future.completeExceptionally(e));
+        } finally {
+            onBatchDone();
+        }
+    }
+
+    @FunctionalInterface
+    public interface BulkLoader<K, V> {
+
+        //deadlineNanos is the System.nanoTime() at which the last caller waiting for these keys gives up
+        Map<K, V> load(Set<K> keys, long deadlineNanos);
+    }
+
+    private static final class Batch<K, V> {
+
+        private final Map<K, CompletableFuture<V>> waiters;
+        private final long deadlineNanos;
+
+        private Batch(Map<K, CompletableFuture<V>> waiters, long deadlineNanos) {
+            this.waiters = waiters;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
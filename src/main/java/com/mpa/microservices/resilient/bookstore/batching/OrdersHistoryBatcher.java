@@ -0,0 +1,109 @@
+package com.mpa.microservices.resilient.bookstore.batching;
+
+import com.mpa.microservices.resilient.bookstore.clients.OrdersHistoryClient;
+import com.mpa.microservices.resilient.bookstore.exceptions.CallTimedOut;
+import com.mpa.microservices.resilient.bookstore.hedging.Hedger;
+import com.mpa.microservices.resilient.bookstore.hedging.HedgerRegistry;
+import com.mpa.microservices.resilient.bookstore.isolation.OrdersHistoryIsolation;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveConcurrencyLimiter;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveLimiterRegistry;
+import com.mpa.microservices.resilient.bookstore.metrics.RecommendationsMetrics;
+import com.mpa.microservices.resilient.bookstore.retry.Retrier;
+import com.mpa.microservices.resilient.bookstore.retry.RetrierRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+//Per-user order history through micro-batches: each batch is one getOrdersForUsers call and spends one propsRL
+// permit, however many users it carries. The bulk call is retried and hedged like the per-user getOrdersForRL call
+// it replaced, its retries within the shared retry budget and only while a caller still waits for the batch, and
+// isolated by the getOrdersForUsers bulkhead and time limiter, sized for bulk calls.
+@Component
+public class OrdersHistoryBatcher {
+
+    private MicroBatcher<String, List<String>> batcher;
+    private OrdersHistoryClient ordersHistoryClient;
+    private OrdersHistoryIsolation ordersHistoryIsolation;
+    private RecommendationsMetrics recommendationsMetrics;
+    private RateLimiter rateLimiter;
+    private AdaptiveConcurrencyLimiter adaptiveLimiter;
+    private Hedger hedger;
+    private Retrier retrier;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService executor;
+    private Duration maxBlock;
+
+    public OrdersHistoryBatcher(BatchingProperties batchingProperties, OrdersHistoryClient ordersHistoryClient,
+            OrdersHistoryIsolation ordersHistoryIsolation, RecommendationsMetrics recommendationsMetrics,
+            RateLimiterRegistry rateLimiterRegistry, AdaptiveLimiterRegistry adaptiveLimiterRegistry,
+            HedgerRegistry hedgerRegistry, RetrierRegistry retrierRegistry) {
+        this.ordersHistoryClient = ordersHistoryClient;
+        this.ordersHistoryIsolation = ordersHistoryIsolation;
+        this.recommendationsMetrics = recommendationsMetrics;
+        this.rateLimiter = rateLimiterRegistry.rateLimiter("propsRL");
+        this.adaptiveLimiter = adaptiveLimiterRegistry.limiter("getOrdersForUsers");
+        this.maxBlock = batchingProperties.getMaxBlock();
+        this.hedger = hedgerRegistry.hedger("getOrdersForRL");
+        this.retrier = retrierRegistry.retrier("getOrdersForRL");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "orders-history-batch-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        //unbounded, maxInFlightBatches already caps how many bulk calls run
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "orders-history-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batcher = new MicroBatcher<>("getOrdersForUsers", batchingProperties.getMaxBatchSize(),
+                batchingProperties.getMaxWait().toNanos(), batchingProperties.getMaxInFlightBatches(),
+                batchingProperties.getMaxBlock().toNanos(), this::loadOrders, scheduler, executor);
+    }
+
+    //blocks until the batch carrying userId has been loaded, maxBlock at most, users unknown downstream get an empty
+    // history
+    public List<String> getOrders(String userId) {
+        List<String> orders = batcher.get(userId);
+        return orders == null ? Collections.emptyList() : orders;
+    }
+
+    //non-blocking getOrders, completes on the batch thread once the batch is loaded
+    public Mono<List<String>> getOrdersMono(String userId) {
+        return Mono.defer(() -> Mono.fromFuture(batcher.submit(userId)))
+                .defaultIfEmpty(Collections.emptyList())
+                .timeout(maxBlock)
+                .onErrorMap(TimeoutException.class,
+                        error -> new CallTimedOut(batcher.getName() + " batch did not complete within " + maxBlock));
+    }
+
+    public MicroBatcher<String, List<String>> getBatcher() {
+        return batcher;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    //Retry ( Hedging ( RateLimiter ( AdaptiveLimit ( Bulkhead ( TimeLimiter ( Function ) ) ) ) ) )
+    private Map<String, List<String>> loadOrders(Set<String> userIds, long deadlineNanos) {
+        return retrier.execute(hedger.decorateSupplier(recommendationsMetrics.decorateRateLimiter(rateLimiter,
+                adaptiveLimiter.decorateSupplier(ordersHistoryIsolation.decorateSupplier("getOrdersForUsers",
+                        () -> ordersHistoryClient.getOrdersForUsers(userIds))))), deadlineNanos);
+    }
+}
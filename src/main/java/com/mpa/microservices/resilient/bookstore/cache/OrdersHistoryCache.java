@@ -0,0 +1,186 @@
+package com.mpa.microservices.resilient.bookstore.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+public class OrdersHistoryCache {
+
+    public static final String ORDERS_CB = "ordersHistoryCB";
+    public static final String ORDERS_RL = "ordersHistoryRL";
+
+    private final long ttlNanos;
+    private final long maxStaleNanos;
+    private final Map<String, CachedOrders> entries;
+    private final ExecutorService refreshExecutor;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder fallbackServed = new LongAdder();
+
+    public OrdersHistoryCache(OrdersHistoryCacheProperties properties) {
+        this.ttlNanos = properties.getTtl().toNanos();
+        this.maxStaleNanos = properties.getMaxStale().toNanos();
+        int maxSize = properties.getMaxSize();
+        //access ordered, so the least recently used entry is evicted once maxSize is exceeded
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedOrders> eldest) {
+                return size() > maxSize;
+            }
+        };
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = Executors.newFixedThreadPool(properties.getRefreshThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "orders-history-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<String> get(String key, Supplier<List<String>> loader) {
+        long now = System.nanoTime();
+        CachedOrders entry = lookup(key, now);
+        if (entry == null) {
+            misses.increment();
+            return load(key, loader);
+        }
+        if (now - entry.loadedAt < ttlNanos) {
+            hits.increment();
+        } else {
+            staleServed.increment();
+            refreshInBackground(key, entry, loader);
+        }
+        return entry.orders;
+    }
+
+    //non-blocking variant for the reactive path, stale entries are refreshed by subscribing to the loader
+    public Mono<List<String>> getMono(String key, Supplier<Mono<List<String>>> loader) {
+        return Mono.defer(() -> {
+            long now = System.nanoTime();
+            CachedOrders entry = lookup(key, now);
+            if (entry == null) {
+                misses.increment();
+                return loader.get().doOnNext(orders -> put(key, orders));
+            }
+            if (now - entry.loadedAt < ttlNanos) {
+                hits.increment();
+            } else {
+                staleServed.increment();
+                if (entry.refreshing.compareAndSet(false, true)) {
+                    loader.get()
+                            .doFinally(signal -> entry.refreshing.set(false))
+                            .subscribe(orders -> put(key, orders), error -> {
+                            });
+                }
+            }
+            return Mono.just(entry.orders);
+        });
+    }
+
+    public Optional<List<String>> getIfPresent(String key) {
+        CachedOrders entry = lookup(key, System.nanoTime());
+        if (entry == null) {
+            return Optional.empty();
+        }
+        fallbackServed.increment();
+        return Optional.of(entry.orders);
+    }
+
+    public void put(String key, List<String> orders) {
+        CachedOrders entry = new CachedOrders(Collections.unmodifiableList(new ArrayList<>(orders)),
+                System.nanoTime());
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getStaleServed() {
+        return staleServed.sum();
+    }
+
+    public long getFallbackServed() {
+        return fallbackServed.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private CachedOrders lookup(String key, long now) {
+        synchronized (entries) {
+            CachedOrders entry = entries.get(key);
+            if (entry != null && now - entry.loadedAt >= ttlNanos + maxStaleNanos) {
+                entries.remove(key);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private List<String> load(String key, Supplier<List<String>> loader) {
+        List<String> orders = loader.get();
+        put(key, orders);
+        return orders;
+    }
+
+    private void refreshInBackground(String key, CachedOrders entry, Supplier<List<String>> loader) {
+        //only one refresh per stale entry, concurrent readers keep getting the stale copy meanwhile
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(key, loader);
+                } catch (RuntimeException e) {
+                    //keep serving the stale entry, the next read after ttl schedules another refresh
+                } finally {
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private static final class CachedOrders {
+
+        private final List<String> orders;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private CachedOrders(List<String> orders, long loadedAt) {
+            this.orders = orders;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
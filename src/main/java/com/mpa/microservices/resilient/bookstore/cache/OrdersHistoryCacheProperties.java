@@ -0,0 +1,50 @@
+package com.mpa.microservices.resilient.bookstore.cache;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.cache")
+public class OrdersHistoryCacheProperties {
+
+    //entries younger than ttl are served directly
+    private Duration ttl = Duration.ofSeconds(5);
+    //entries older than ttl but younger than maxStale are served and refreshed in the background;
+    // they are also what the fallback serves while the circuit breaker is OPEN
+    private Duration maxStale = Duration.ofMinutes(10);
+    private int maxSize = 1000;
+    private int refreshThreads = 2;
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getMaxStale() {
+        return maxStale;
+    }
+
+    public void setMaxStale(Duration maxStale) {
+        this.maxStale = maxStale;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getRefreshThreads() {
+        return refreshThreads;
+    }
+
+    public void setRefreshThreads(int refreshThreads) {
+        this.refreshThreads = refreshThreads;
+    }
+}
@@ -0,0 +1,38 @@
+package com.mpa.microservices.resilient.bookstore.clients;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Response;
+import feign.Util;
+import feign.codec.Decoder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+
+//Decodes Smile responses with the smile mapper and everything else with the json decoder. Smile is read from the
+// body's bytes, feign's JacksonDecoder reads through a Reader that a Smile parser can't take.
+public class ContentTypeDecoder implements Decoder {
+
+    private final Decoder json;
+    private final ObjectMapper smileMapper;
+
+    public ContentTypeDecoder(Decoder json, ObjectMapper smileMapper) {
+        this.json = json;
+        this.smileMapper = smileMapper;
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException {
+        if (!PayloadEncoding.isSmile(response)) {
+            return json.decode(response, type);
+        }
+        if (response.status() == 404 || response.status() == 204) {
+            return Util.emptyValueOf(type);
+        }
+        if (response.body() == null) {
+            return null;
+        }
+        try (InputStream body = response.body().asInputStream()) {
+            return smileMapper.readValue(body, smileMapper.constructType(type));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.mpa.microservices.resilient.bookstore.clients;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//Only the first value() elements of the JSON array returned by this client method are decoded,
+// see FirstElementsDecoder
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface FirstElements {
+
+    int value();
+}
@@ -0,0 +1,68 @@
+package com.mpa.microservices.resilient.bookstore.clients;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import feign.MethodMetadata;
+import feign.Response;
+import feign.codec.DecodeException;
+import feign.codec.Decoder;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+//For client methods annotated with @FirstElements, pulls tokens off the response stream one at a time and stops after
+// the first n strings of the array, so a long order history is neither parsed nor held in memory to use two books.
+// Closing the response lets the HTTP client skip the rest of the body without parsing it, which keeps the pooled
+// connection reusable. Smile responses are read with the smile factory, the rest as JSON. Every other method goes to
+// the delegate.
+public class FirstElementsDecoder implements Decoder {
+
+    private final JsonFactory jsonFactory;
+    private final JsonFactory smileFactory;
+    private final Decoder delegate;
+
+    public FirstElementsDecoder(JsonFactory jsonFactory, JsonFactory smileFactory, Decoder delegate) {
+        this.jsonFactory = jsonFactory;
+        this.smileFactory = smileFactory;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException {
+        FirstElements firstElements = firstElements(response);
+        if (firstElements == null || response.body() == null) {
+            return delegate.decode(response, type);
+        }
+        JsonFactory factory = PayloadEncoding.isSmile(response) ? smileFactory : jsonFactory;
+        try (Response.Body body = response.body(); JsonParser parser = factory.createParser(body.asInputStream())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new DecodeException(response.status(), "Expected an array", response.request());
+            }
+            List<String> elements = new ArrayList<>(firstElements.value());
+            while (elements.size() < firstElements.value()) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.END_ARRAY) {
+                    break;
+                }
+                if (token != JsonToken.VALUE_STRING) {
+                    throw new DecodeException(response.status(), "Expected a string, got " + token,
+                            response.request());
+                }
+                elements.add(parser.getText());
+            }
+            return elements;
+        }
+    }
+
+    private static FirstElements firstElements(Response response) {
+        if (response.request() == null || response.request().requestTemplate() == null) {
+            return null;
+        }
+        MethodMetadata metadata = response.request().requestTemplate().methodMetadata();
+        Method method = metadata == null ? null : metadata.method();
+        return method == null ? null : method.getAnnotation(FirstElements.class);
+    }
+}
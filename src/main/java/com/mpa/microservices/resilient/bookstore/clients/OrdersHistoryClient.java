@@ -1,18 +1,28 @@
 package com.mpa.microservices.resilient.bookstore.clients;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
-@FeignClient(name = "order-history-service", url = "http://localhost:9091/")
+@FeignClient(name = "order-history-service", url = "${order-history-service.url}")
 public interface OrdersHistoryClient {
 
+    //callers only ever recommend the first two books
+    @FirstElements(2)
     @GetMapping("/ordersHistoryCB")
     List<String> getOrdersForCB();
 
     @GetMapping("/ordersHistoryRL")
     List<String> getOrdersForRL();
 
+    @FirstElements(2)
     @GetMapping("/exception")
     List<String> getOrdersException();
+
+    //order history of every requested user, keyed by user id
+    @GetMapping("/ordersHistory")
+    Map<String, List<String>> getOrdersForUsers(@RequestParam("userIds") Collection<String> userIds);
 }
@@ -0,0 +1,27 @@
+package com.mpa.microservices.resilient.bookstore.clients;
+
+import feign.Response;
+import java.util.Collection;
+
+//The encodings order-history-service may answer in. Smile is Jackson's binary JSON, the same data model with length
+// prefixed strings and no text to scan for quotes and escapes, so it is both shorter on the wire and cheaper to parse.
+// Clients ask for it first and decode whatever Content-Type comes back.
+public final class PayloadEncoding {
+
+    public static final String SMILE = "application/x-jackson-smile";
+    public static final String JSON = "application/json";
+    //the Accept of requests to order-history-service: Smile where offered, JSON otherwise
+    public static final String ACCEPT_SMILE = SMILE + ", " + JSON + ";q=0.9";
+
+    private PayloadEncoding() {
+    }
+
+    public static boolean isSmile(String contentType) {
+        return contentType != null && contentType.regionMatches(true, 0, SMILE, 0, SMILE.length());
+    }
+
+    public static boolean isSmile(Response response) {
+        Collection<String> contentType = response.headers().get("Content-Type");
+        return contentType != null && !contentType.isEmpty() && isSmile(contentType.iterator().next());
+    }
+}
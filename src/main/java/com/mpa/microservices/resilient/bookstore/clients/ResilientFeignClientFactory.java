@@ -0,0 +1,116 @@
+package com.mpa.microservices.resilient.bookstore.clients;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mpa.microservices.resilient.bookstore.isolation.IsolationFeignDecorator;
+import com.mpa.microservices.resilient.bookstore.isolation.OrdersHistoryIsolation;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveLimiterFeignDecorator;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveLimiterRegistry;
+import com.mpa.microservices.resilient.bookstore.metrics.RecommendationsMetrics;
+import com.mpa.microservices.resilient.bookstore.metrics.TimedRateLimiterFeignDecorator;
+import feign.Client;
+import feign.Request;
+import feign.RequestInterceptor;
+import feign.Retryer;
+import feign.codec.Decoder;
+import feign.jackson.JacksonDecoder;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.feign.FeignDecorator;
+import io.github.resilience4j.feign.FeignDecorators;
+import io.github.resilience4j.feign.Resilience4jFeign;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.stereotype.Component;
+
+//Builds each Resilience4jFeign decorated client once per (circuit breaker, rate limiter, base url) and reuses it.
+// All clients share the decoder, the request interceptors and the pooled HTTP client.
+@Component
+public class ResilientFeignClientFactory {
+
+    private final ConcurrentMap<ClientKey, OrdersHistoryClient> clients = new ConcurrentHashMap<>();
+    private final Decoder decoder;
+    private final Client client;
+    private final Request.Options options;
+    private final List<RequestInterceptor> requestInterceptors;
+    private final AdaptiveLimiterRegistry adaptiveLimiterRegistry;
+    private final RecommendationsMetrics recommendationsMetrics;
+    private final FeignDecorator isolation;
+
+    public ResilientFeignClientFactory(Client client, Request.Options options, ObjectMapper objectMapper,
+            List<RequestInterceptor> requestInterceptors, AdaptiveLimiterRegistry adaptiveLimiterRegistry,
+            OrdersHistoryIsolation ordersHistoryIsolation, RecommendationsMetrics recommendationsMetrics) {
+        this.client = client;
+        this.options = options;
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        this.decoder = new FirstElementsDecoder(objectMapper.getFactory(), smileMapper.getFactory(),
+                new ContentTypeDecoder(new JacksonDecoder(objectMapper), smileMapper));
+        this.requestInterceptors = requestInterceptors;
+        this.adaptiveLimiterRegistry = adaptiveLimiterRegistry;
+        this.recommendationsMetrics = recommendationsMetrics;
+        this.isolation = new IsolationFeignDecorator(ordersHistoryIsolation);
+    }
+
+    public OrdersHistoryClient ordersHistoryClient(CircuitBreaker circuitBreaker, RateLimiter rateLimiter,
+            String baseUrl) {
+        return clients.computeIfAbsent(new ClientKey(circuitBreaker.getName(), rateLimiter.getName(), baseUrl),
+                key -> build(circuitBreaker, rateLimiter, baseUrl));
+    }
+
+    private OrdersHistoryClient build(CircuitBreaker circuitBreaker, RateLimiter rateLimiter, String baseUrl) {
+        FeignDecorators decorators = FeignDecorators.builder()
+                .withCircuitBreaker(circuitBreaker)
+                .build();
+        FeignDecorator timedRateLimiter = new TimedRateLimiterFeignDecorator(rateLimiter, recommendationsMetrics);
+        FeignDecorator adaptiveLimiter = new AdaptiveLimiterFeignDecorator(adaptiveLimiterRegistry);
+        //CircuitBreaker ( RateLimiter ( AdaptiveConcurrencyLimit ( Bulkhead ( TimeLimiter ( Function ) ) ) ) )
+        FeignDecorator decorator = (invocationCall, method, methodHandler, target) -> decorators.decorate(
+                timedRateLimiter.decorate(adaptiveLimiter.decorate(
+                        isolation.decorate(invocationCall, method, methodHandler, target), method, methodHandler,
+                        target), method, methodHandler, target), method, methodHandler, target);
+        return Resilience4jFeign.builder(decorator)
+                .client(client)
+                .options(options)
+                .requestInterceptors(requestInterceptors)
+                //Feign's default retryer would retry up to 5 times inside the breaker, unbudgeted; callers wrap the
+                // client in a Retrier instead
+                .retryer(Retryer.NEVER_RETRY)
+                .contract(new SpringMvcContract())
+                .decoder(decoder)
+                .target(OrdersHistoryClient.class, baseUrl);
+    }
+
+    private static final class ClientKey {
+
+        private final String circuitBreaker;
+        private final String rateLimiter;
+        private final String baseUrl;
+
+        private ClientKey(String circuitBreaker, String rateLimiter, String baseUrl) {
+            this.circuitBreaker = circuitBreaker;
+            this.rateLimiter = rateLimiter;
+            this.baseUrl = baseUrl;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClientKey)) {
+                return false;
+            }
+            ClientKey that = (ClientKey) o;
+            return circuitBreaker.equals(that.circuitBreaker) && rateLimiter.equals(that.rateLimiter)
+                    && baseUrl.equals(that.baseUrl);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(circuitBreaker, rateLimiter, baseUrl);
+        }
+    }
+}
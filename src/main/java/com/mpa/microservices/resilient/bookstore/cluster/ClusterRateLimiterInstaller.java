@@ -0,0 +1,79 @@
+package com.mpa.microservices.resilient.bookstore.cluster;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+//Swaps the rate limiters listed in recommendations.cluster-rate-limiter for LeasedRateLimiters as soon as the
+// RateLimiterRegistry is built, so every bean looking them up gets the cluster-wide ones. Each keeps the config the
+// registry built for it.
+@Component
+public class ClusterRateLimiterInstaller implements BeanPostProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterRateLimiterInstaller.class);
+    //shared by every application context of the JVM, that is what makes them one cluster
+    private static final InProcessPermitCoordinator IN_PROCESS = new InProcessPermitCoordinator();
+
+    //an ObjectProvider: bean post processors are created before the properties can be bound
+    private ObjectProvider<ClusterRateLimiterProperties> properties;
+    private PermitCoordinator coordinator;
+    private List<LeasedRateLimiter> installed = new ArrayList<>();
+
+    public ClusterRateLimiterInstaller(ObjectProvider<ClusterRateLimiterProperties> properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof RateLimiterRegistry) {
+            install((RateLimiterRegistry) bean, properties.getObject());
+        }
+        return bean;
+    }
+
+    @PreDestroy
+    public void returnLeases() throws IOException {
+        for (LeasedRateLimiter rateLimiter : installed) {
+            rateLimiter.release();
+        }
+        if (coordinator instanceof Closeable) {
+            ((Closeable) coordinator).close();
+        }
+    }
+
+    private void install(RateLimiterRegistry registry, ClusterRateLimiterProperties properties) {
+        coordinator = coordinator(properties);
+        if (coordinator == null) {
+            return;
+        }
+        for (String name : properties.getRateLimiters()) {
+            RateLimiter rateLimiter = registry.rateLimiter(name);
+            LeasedRateLimiter leased = new LeasedRateLimiter(name, rateLimiter.getRateLimiterConfig(), coordinator,
+                    properties.getLeaseSize());
+            registry.replace(name, leased);
+            installed.add(leased);
+        }
+        log.info("Rate limiters {} are limited cluster-wide through {}", properties.getRateLimiters(),
+                coordinator.getClass().getSimpleName());
+    }
+
+    private static PermitCoordinator coordinator(ClusterRateLimiterProperties properties) {
+        switch (properties.getCoordinator()) {
+            case IN_PROCESS:
+                return IN_PROCESS;
+            case FILE:
+                return new FilePermitCoordinator(properties.getDirectory());
+            default:
+                return null;
+        }
+    }
+}
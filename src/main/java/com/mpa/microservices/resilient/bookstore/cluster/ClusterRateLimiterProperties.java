@@ -0,0 +1,63 @@
+package com.mpa.microservices.resilient.bookstore.cluster;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.cluster-rate-limiter")
+public class ClusterRateLimiterProperties {
+
+    public enum Coordinator {
+        //every instance enforces its limits on its own
+        NONE,
+        //instances in the same JVM share their limits
+        IN_PROCESS,
+        //instances sharing the directory share their limits
+        FILE
+    }
+
+    private Coordinator coordinator = Coordinator.NONE;
+    //resilience4j.ratelimiter.instances whose limitForPeriod holds for the cluster rather than per instance
+    private List<String> rateLimiters = new ArrayList<>(Collections.singletonList("propsRL"));
+    //permits an instance takes from the coordinator at once: larger means fewer coordinator calls, smaller means
+    // permits are spread more evenly between instances
+    private int leaseSize = 10;
+    private Path directory = Paths.get(System.getProperty("java.io.tmpdir"), "recommendations-permits");
+
+    public Coordinator getCoordinator() {
+        return coordinator;
+    }
+
+    public void setCoordinator(Coordinator coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    public List<String> getRateLimiters() {
+        return rateLimiters;
+    }
+
+    public void setRateLimiters(List<String> rateLimiters) {
+        this.rateLimiters = rateLimiters;
+    }
+
+    public int getLeaseSize() {
+        return leaseSize;
+    }
+
+    public void setLeaseSize(int leaseSize) {
+        this.leaseSize = leaseSize;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+}
@@ -0,0 +1,96 @@
+package com.mpa.microservices.resilient.bookstore.cluster;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToIntFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+//Coordinates the instances sharing a directory, typically those on one host. Each rate limiter's leased windows are
+// a 24 byte file read and rewritten under an exclusive file lock. If the file can't be used no permits are granted,
+// the limit fails closed rather than letting every instance run at the full rate.
+public class FilePermitCoordinator implements PermitCoordinator, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(FilePermitCoordinator.class);
+
+    private final Path directory;
+    private final ConcurrentMap<String, FileChannel> channels = new ConcurrentHashMap<>();
+
+    public FilePermitCoordinator(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public int lease(String name, long window, int limit, int requested) {
+        try {
+            return update(name, leased -> leased.lease(window, limit, requested));
+        } catch (IOException e) {
+            log.warn("Could not lease {} permits of {} from {}: {}", requested, name, directory, e.toString());
+            return 0;
+        }
+    }
+
+    @Override
+    public void release(String name, long window, int permits) {
+        try {
+            update(name, leased -> {
+                leased.release(window, permits);
+                return 0;
+            });
+        } catch (IOException e) {
+            log.warn("Could not release {} permits of {} to {}: {}", permits, name, directory, e.toString());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (FileChannel channel : channels.values()) {
+            channel.close();
+        }
+    }
+
+    private int update(String name, ToIntFunction<LeasedWindows> update) throws IOException {
+        FileChannel channel = channel(name);
+        //file locks are held per JVM, threads of this one queue on the channel
+        synchronized (channel) {
+            try (FileLock lock = channel.lock()) {
+                ByteBuffer buffer = ByteBuffer.allocate(LeasedWindows.BYTES);
+                LeasedWindows leased = new LeasedWindows();
+                if (channel.read(buffer, 0) == LeasedWindows.BYTES) {
+                    buffer.flip();
+                    leased.read(buffer);
+                }
+                int result = update.applyAsInt(leased);
+                buffer.clear();
+                leased.write(buffer);
+                buffer.flip();
+                channel.write(buffer, 0);
+                return result;
+            }
+        }
+    }
+
+    private FileChannel channel(String name) throws IOException {
+        FileChannel channel = channels.get(name);
+        if (channel != null) {
+            return channel;
+        }
+        Files.createDirectories(directory);
+        channel = FileChannel.open(directory.resolve(name + ".permits"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel existing = channels.putIfAbsent(name, channel);
+        if (existing != null) {
+            channel.close();
+            return existing;
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,28 @@
+package com.mpa.microservices.resilient.bookstore.cluster;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+//Coordinates the instances running in one JVM, e.g. several application contexts started side by side in a test
+public class InProcessPermitCoordinator implements PermitCoordinator {
+
+    private final ConcurrentMap<String, LeasedWindows> limiters = new ConcurrentHashMap<>();
+
+    @Override
+    public int lease(String name, long window, int limit, int requested) {
+        LeasedWindows leased = limiters.computeIfAbsent(name, key -> new LeasedWindows());
+        synchronized (leased) {
+            return leased.lease(window, limit, requested);
+        }
+    }
+
+    @Override
+    public void release(String name, long window, int permits) {
+        LeasedWindows leased = limiters.get(name);
+        if (leased != null) {
+            synchronized (leased) {
+                leased.release(window, permits);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.mpa.microservices.resilient.bookstore.cluster;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.event.RateLimiterOnFailureEvent;
+import io.github.resilience4j.ratelimiter.event.RateLimiterOnSuccessEvent;
+import io.github.resilience4j.ratelimiter.internal.RateLimiterEventProcessor;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//A RateLimiter whose limitForPeriod holds for all instances sharing the coordinator together. Time is cut into
+// limitRefreshPeriod windows of the wall clock, so instances agree on them, and each instance leases the permits it
+// spends leaseSize at a time. Spending a leased permit is a compare-and-set on a local counter, the coordinator is
+// only asked when the lease runs out. Leases belong to one window: an instance that dies holding permits can't push
+// the cluster over the limit, its permits just go unspent until the window ends. Unspent permits are returned on
+// release(). Once the coordinator has no permits left for a window it isn't asked again for that window, so denied
+// calls stay as cheap as granted ones when the cluster is saturated.
+public class LeasedRateLimiter implements RateLimiter {
+
+    private static final Lease NO_LEASE = new Lease(Long.MIN_VALUE, 0);
+
+    private final String name;
+    private final PermitCoordinator coordinator;
+    private final int leaseSize;
+    private volatile RateLimiterConfig config;
+    private final RateLimiterEventProcessor eventProcessor = new RateLimiterEventProcessor();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+
+    //permits of the current window; of the next one, once the current window's are gone cluster-wide (guarded by this)
+    private volatile Lease current = NO_LEASE;
+    private Lease next = NO_LEASE;
+    //the latest window the coordinator ran out of permits for, every earlier one has run out too
+    private volatile long exhaustedWindow = Long.MIN_VALUE;
+
+    public LeasedRateLimiter(String name, RateLimiterConfig config, PermitCoordinator coordinator, int leaseSize) {
+        this.name = name;
+        this.config = config;
+        this.coordinator = coordinator;
+        this.leaseSize = leaseSize;
+    }
+
+    @Override
+    public long reservePermission(int permits) {
+        long now = System.currentTimeMillis();
+        long periodMillis = config.getLimitRefreshPeriod().toMillis();
+        long window = now / periodMillis;
+        Lease lease = current;
+        long waitNanos;
+        if (lease.window == window && lease.take(permits)) {
+            waitNanos = 0;
+        } else if (lease.window == window && exhaustedWindow >= window
+                && nanosUntilNextWindow(now, window, periodMillis) > config.getTimeoutDuration().toNanos()) {
+            //nothing left to lease in this window and too long to wait for the next one
+            waitNanos = -1;
+        } else {
+            waitNanos = reserveFromCoordinator(permits, now, window, periodMillis);
+        }
+        if (eventProcessor.hasConsumers()) {
+            eventProcessor.consumeEvent(waitNanos < 0
+                    ? new RateLimiterOnFailureEvent(name, permits)
+                    : new RateLimiterOnSuccessEvent(name, permits));
+        }
+        return waitNanos;
+    }
+
+    @Override
+    public boolean acquirePermission(int permits) {
+        long waitNanos = reservePermission(permits);
+        if (waitNanos <= 0) {
+            return waitNanos == 0;
+        }
+        waitingThreads.incrementAndGet();
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waitingThreads.decrementAndGet();
+        }
+    }
+
+    //gives unspent permits back so other instances can use them, called when this instance shuts down
+    public synchronized void release() {
+        for (Lease lease : new Lease[] {current, next}) {
+            int unspent = lease.drain();
+            if (unspent > 0) {
+                coordinator.release(name, lease.window, unspent);
+            }
+        }
+    }
+
+    @Override
+    public void changeTimeoutDuration(Duration timeoutDuration) {
+        config = RateLimiterConfig.from(config).timeoutDuration(timeoutDuration).build();
+    }
+
+    //the new limit applies from the next lease on, permits already leased stay valid
+    @Override
+    public void changeLimitForPeriod(int limitForPeriod) {
+        config = RateLimiterConfig.from(config).limitForPeriod(limitForPeriod).build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public RateLimiterConfig getRateLimiterConfig() {
+        return config;
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+        return HashMap.empty();
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return new Metrics() {
+            @Override
+            public int getNumberOfWaitingThreads() {
+                return waitingThreads.get();
+            }
+
+            //permits this instance holds for the current window
+            @Override
+            public int getAvailablePermissions() {
+                Lease lease = current;
+                long window = System.currentTimeMillis() / config.getLimitRefreshPeriod().toMillis();
+                return lease.window == window ? lease.remaining.get() : 0;
+            }
+        };
+    }
+
+    @Override
+    public EventPublisher getEventPublisher() {
+        return eventProcessor;
+    }
+
+    //-1 when the permits can't be had within timeoutDuration, otherwise how long to wait for them
+    private synchronized long reserveFromCoordinator(int permits, long now, long window, long periodMillis) {
+        if (current.window != window) {
+            //permits left over from an earlier window expire with it
+            current = next.window == window ? next : new Lease(window, 0);
+        }
+        if (current.take(permits)) {
+            return 0;
+        }
+        int limit = config.getLimitForPeriod();
+        int requested = Math.max(leaseSize, permits);
+        if (exhaustedWindow < window) {
+            int granted = coordinator.lease(name, window, limit, requested);
+            if (granted < requested) {
+                exhaustedWindow = window;
+            }
+            if (granted > 0) {
+                current = new Lease(window, current.drain() + granted);
+                if (current.take(permits)) {
+                    return 0;
+                }
+            }
+        }
+        long waitNanos = nanosUntilNextWindow(now, window, periodMillis);
+        if (waitNanos > config.getTimeoutDuration().toNanos()) {
+            return -1;
+        }
+        if (next.window != window + 1) {
+            next = new Lease(window + 1, 0);
+        }
+        if (!next.take(permits)) {
+            if (exhaustedWindow > window) {
+                return -1;
+            }
+            int granted = coordinator.lease(name, window + 1, limit, requested);
+            if (granted < requested) {
+                exhaustedWindow = window + 1;
+            }
+            next = new Lease(window + 1, next.drain() + granted);
+            if (!next.take(permits)) {
+                return -1;
+            }
+        }
+        return waitNanos;
+    }
+
+    private static long nanosUntilNextWindow(long now, long window, long periodMillis) {
+        return TimeUnit.MILLISECONDS.toNanos((window + 1) * periodMillis - now);
+    }
+
+    private static final class Lease {
+
+        private final long window;
+        private final AtomicInteger remaining;
+
+        private Lease(long window, int permits) {
+            this.window = window;
+            this.remaining = new AtomicInteger(permits);
+        }
+
+        private boolean take(int permits) {
+            while (true) {
+                int left = remaining.get();
+                if (left < permits) {
+                    return false;
+                }
+                if (remaining.compareAndSet(left, left - permits)) {
+                    return true;
+                }
+            }
+        }
+
+        private int drain() {
+            return remaining.getAndSet(0);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mpa.microservices.resilient.bookstore.cluster;
+
+import java.nio.ByteBuffer;
+
+//Permits granted in the two most recent windows of one rate limiter, shared by the coordinators. A lease for a newer
+// window recycles the older slot, a lease for a window older than both is refused.
+class LeasedWindows {
+
+    static final int BYTES = 2 * (Long.BYTES + Integer.BYTES);
+
+    private final long[] windows = {Long.MIN_VALUE, Long.MIN_VALUE};
+    private final int[] granted = new int[2];
+
+    int lease(long window, int limit, int requested) {
+        int slot = slotOf(window);
+        if (slot < 0) {
+            int older = windows[0] <= windows[1] ? 0 : 1;
+            if (windows[older] > window) {
+                return 0;
+            }
+            slot = older;
+            windows[slot] = window;
+            granted[slot] = 0;
+        }
+        int leased = Math.max(0, Math.min(requested, limit - granted[slot]));
+        granted[slot] += leased;
+        return leased;
+    }
+
+    void release(long window, int permits) {
+        int slot = slotOf(window);
+        if (slot >= 0) {
+            granted[slot] = Math.max(0, granted[slot] - permits);
+        }
+    }
+
+    void read(ByteBuffer buffer) {
+        for (int slot = 0; slot < 2; slot++) {
+            windows[slot] = buffer.getLong();
+            granted[slot] = buffer.getInt();
+        }
+    }
+
+    void write(ByteBuffer buffer) {
+        for (int slot = 0; slot < 2; slot++) {
+            buffer.putLong(windows[slot]);
+            buffer.putInt(granted[slot]);
+        }
+    }
+
+    private int slotOf(long window) {
+        if (windows[0] == window) {
+            return 0;
+        }
+        return windows[1] == window ? 1 : -1;
+    }
+}
@@ -0,0 +1,13 @@
+package com.mpa.microservices.resilient.bookstore.cluster;
+
+//Hands out the limit permits of each rate limiter window to the instances sharing the limit. Windows are numbered
+// by the instances (wall clock / limitRefreshPeriod), a coordinator only tracks the most recent two of each limiter:
+// the current one and the next one, which callers willing to wait reserve from.
+public interface PermitCoordinator {
+
+    //grants up to requested of the limit permits of window that no instance holds yet, 0 when none are left
+    int lease(String name, long window, int limit, int requested);
+
+    //gives back leased permits of window that will not be spent
+    void release(String name, long window, int permits);
+}
@@ -0,0 +1,93 @@
+package com.mpa.microservices.resilient.bookstore.coalescing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+//Single-flight: while a call for a key is in flight, every other caller for the same key waits for
+// (and shares) its result or its failure instead of issuing its own downstream request. Flights are keyed by caller
+// and key: callers decorating the same endpoint differently must not be handed each other's failures.
+@Component
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Mono<Object>> inFlightMonos = new ConcurrentHashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String caller, String key, Supplier<T> call) {
+        String flight = caller + ":" + key;
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flight, future);
+        if (existing != null) {
+            collapsed.increment();
+            return (T) join(existing);
+        }
+        executed.increment();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(flight, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        //removed before completing, a caller arriving in between would replay this finished flight
+        inFlight.remove(flight, future);
+        future.complete(result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> executeMono(String caller, String key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            AtomicReference<Mono<Object>> created = new AtomicReference<>();
+            Mono<Object> shared = inFlightMonos.computeIfAbsent(caller + ":" + key, k -> {
+                //removed before the result reaches cache() subscribers, doFinally would run only after they
+                // completed and let the next sequential caller replay this finished flight
+                created.set(((Mono<Object>) call.get())
+                        .doOnSuccess(result -> inFlightMonos.remove(k, created.get()))
+                        .doOnError(error -> inFlightMonos.remove(k, created.get()))
+                        .cache());
+                return created.get();
+            });
+            if (shared == created.get()) {
+                executed.increment();
+            } else {
+                collapsed.increment();
+            }
+            return (Mono<T>) shared;
+        });
+    }
+
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    public long getCollapsed() {
+        return collapsed.sum();
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
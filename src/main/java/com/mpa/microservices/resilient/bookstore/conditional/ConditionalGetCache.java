@@ -0,0 +1,101 @@
+package com.mpa.microservices.resilient.bookstore.conditional;
+
+import com.mpa.microservices.resilient.bookstore.config.OrdersHistoryHttpClientProperties;
+import com.mpa.microservices.resilient.bookstore.tenant.StripedLruRegistry;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+//Bodies of order-history-service GET responses that came with an ETag, by URL, so the next GET of the URL goes out
+// with If-None-Match and a 304 is answered from the copy: an unchanged history is not transferred again. Bodies are
+// kept as received, decompressed but in the negotiated encoding, and decoded on each use like a fresh response, so
+// callers never share a decoded list. Only bodies read to the end are kept, one a @FirstElements call stopped reading
+// after two books is not. Bodies over maxBodySize aren't kept, and the least recently used go once all of them take
+// more than maxSize.
+@Component
+public class ConditionalGetCache {
+
+    //lookups of different URLs rarely wait for each other
+    private static final int STRIPES = 16;
+
+    private final int maxBodySize;
+    private final StripedLruRegistry<CachedBody> entries;
+
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder modified = new LongAdder();
+
+    public ConditionalGetCache(OrdersHistoryHttpClientProperties properties) {
+        this.maxBodySize = (int) properties.getConditionalGetMaxBodySize().toBytes();
+        this.entries = new StripedLruRegistry<>(properties.getConditionalGetMaxSize().toBytes(), STRIPES,
+                Long.MAX_VALUE, cached -> cached.getBody().length, null);
+    }
+
+    public CachedBody get(String url) {
+        return entries.getIfPresent(url);
+    }
+
+    //a 200 with an ETag, its body replaces the copy
+    public void put(String url, String etag, String contentType, byte[] body) {
+        modified.increment();
+        if (body.length > maxBodySize) {
+            remove(url);
+            return;
+        }
+        entries.put(url, new CachedBody(etag, contentType, body));
+    }
+
+    //a 200 without an ETag, there is nothing to revalidate the copy with anymore
+    public void remove(String url) {
+        entries.remove(url);
+    }
+
+    public void recordNotModified() {
+        notModified.increment();
+    }
+
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    public long getNotModified() {
+        return notModified.sum();
+    }
+
+    public long getModified() {
+        return modified.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    //bytes of the bodies kept
+    public long bytes() {
+        return entries.weight();
+    }
+
+    public static final class CachedBody {
+
+        private final String etag;
+        private final String contentType;
+        private final byte[] body;
+
+        private CachedBody(String etag, String contentType, byte[] body) {
+            this.etag = etag;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        //shared, not to be modified
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.mpa.microservices.resilient.bookstore.conditional;
+
+import com.mpa.microservices.resilient.bookstore.conditional.ConditionalGetCache.CachedBody;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//WebClient counterpart of ConditionalGetFeignClient. The body of a 200 with an ETag still streams to the decoder as
+// it arrives, a copy of it is taken on the way, at most maxBodySize, and kept once the body has been read to the end.
+// A body read only in part, like the one a take() cancels, or one too large to keep, is not kept.
+public class ConditionalGetExchangeFilterFunction implements ExchangeFilterFunction {
+
+    private final ConditionalGetCache cache;
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    public ConditionalGetExchangeFilterFunction(ConditionalGetCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.method() != HttpMethod.GET) {
+            return next.exchange(request);
+        }
+        String url = request.url().toString();
+        return Mono.defer(() -> {
+            CachedBody cached = cache.get(url);
+            ClientRequest sent = cached == null ? request : ClientRequest.from(request)
+                    .header(HttpHeaders.IF_NONE_MATCH, cached.getEtag())
+                    .build();
+            return next.exchange(sent).flatMap(response -> {
+                if (response.rawStatusCode() == HttpStatus.NOT_MODIFIED.value() && cached != null) {
+                    cache.recordNotModified();
+                    return response.releaseBody().thenReturn(fromCopy(response, cached));
+                }
+                if (response.rawStatusCode() != HttpStatus.OK.value()) {
+                    return Mono.just(response);
+                }
+                String etag = response.headers().asHttpHeaders().getETag();
+                if (etag == null) {
+                    if (cached != null) {
+                        cache.remove(url);
+                    }
+                    return Mono.just(response);
+                }
+                if (response.headers().contentLength().orElse(0) > cache.getMaxBodySize()) {
+                    cache.remove(url);
+                    return Mono.just(response);
+                }
+                return Mono.just(keep(url, etag, response));
+            });
+        });
+    }
+
+    private ClientResponse keep(String url, String etag, ClientResponse response) {
+        String contentType = response.headers().asHttpHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+        int maxBodySize = cache.getMaxBodySize();
+        Flux<DataBuffer> body = response.body(BodyExtractors.toDataBuffers());
+        return ClientResponse.from(response).body(Flux.defer(() -> {
+            AtomicReference<ByteArrayOutputStream> copy = new AtomicReference<>(new ByteArrayOutputStream());
+            return body
+                    .doOnNext(buffer -> {
+                        ByteArrayOutputStream copied = copy.get();
+                        if (copied == null) {
+                            return;
+                        }
+                        if (copied.size() + buffer.readableByteCount() > maxBodySize) {
+                            copy.set(null);
+                            cache.remove(url);
+                            return;
+                        }
+                        //a view of the readable bytes, the decoder still reads the buffer from the start
+                        byte[] chunk = new byte[buffer.readableByteCount()];
+                        buffer.asByteBuffer().get(chunk);
+                        copied.write(chunk, 0, chunk.length);
+                    })
+                    .doOnComplete(() -> {
+                        ByteArrayOutputStream copied = copy.get();
+                        if (copied != null) {
+                            cache.put(url, etag, contentType, copied.toByteArray());
+                        }
+                    });
+        })).build();
+    }
+
+    private ClientResponse fromCopy(ClientResponse notModified, CachedBody cached) {
+        return ClientResponse.from(notModified)
+                .statusCode(HttpStatus.OK)
+                .headers(headers -> {
+                    if (cached.getContentType() != null) {
+                        headers.set(HttpHeaders.CONTENT_TYPE, cached.getContentType());
+                    }
+                    headers.setContentLength(cached.getBody().length);
+                })
+                .body(body(cached.getBody()))
+                .build();
+    }
+
+    private Flux<DataBuffer> body(byte[] body) {
+        return Flux.defer(() -> Flux.just(bufferFactory.wrap(body)));
+    }
+}
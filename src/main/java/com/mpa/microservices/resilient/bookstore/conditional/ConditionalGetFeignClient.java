@@ -0,0 +1,186 @@
+package com.mpa.microservices.resilient.bookstore.conditional;
+
+import com.mpa.microservices.resilient.bookstore.conditional.ConditionalGetCache.CachedBody;
+import feign.Client;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Revalidates the GETs made through Feign with If-None-Match when the ConditionalGetCache has a copy and turns a 304
+// into a 200 carrying the copy, so decoders, circuit breakers and callers see an ordinary response. Like
+// ConditionalGetExchangeFilterFunction, the body of a 200 with an ETag streams to the decoder as it arrives and a copy,
+// at most maxBodySize, is taken on the way and kept once the body has been read to the end. A body the decoder stops
+// reading early, like a @FirstElements one, or one too large to keep, is not kept.
+public class ConditionalGetFeignClient implements Client {
+
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final int COPY_CHUNK = 8192;
+
+    private final Client delegate;
+    private final ConditionalGetCache cache;
+
+    public ConditionalGetFeignClient(Client delegate, ConditionalGetCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Response execute(Request request, Options options) throws IOException {
+        if (request.httpMethod() != Request.HttpMethod.GET) {
+            return delegate.execute(request, options);
+        }
+        String url = request.url();
+        CachedBody cached = cache.get(url);
+        Response response = delegate.execute(cached == null ? request : ifNoneMatch(request, cached), options);
+        if (response.status() == 304 && cached != null) {
+            cache.recordNotModified();
+            response.close();
+            return fromCopy(response, cached);
+        }
+        if (response.status() != 200 || response.body() == null) {
+            return response;
+        }
+        String etag = header(response, "ETag");
+        if (etag == null) {
+            if (cached != null) {
+                cache.remove(url);
+            }
+            return response;
+        }
+        return keep(url, etag, response);
+    }
+
+    private Response keep(String url, String etag, Response response) throws IOException {
+        Integer length = response.body().length();
+        if (length != null && length > cache.getMaxBodySize()) {
+            cache.remove(url);
+            return response;
+        }
+        InputStream in;
+        try {
+            in = response.body().asInputStream();
+        } catch (IOException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+        return response.toBuilder()
+                .body(new CopyingInputStream(in, url, etag, header(response, "Content-Type"), length), length)
+                .build();
+    }
+
+    private static Request ifNoneMatch(Request request, CachedBody cached) {
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(request.headers());
+        headers.put(IF_NONE_MATCH, Collections.singletonList(cached.getEtag()));
+        return Request.create(request.httpMethod(), request.url(), headers, request.body(), request.charset(),
+                request.requestTemplate());
+    }
+
+    private static Response fromCopy(Response notModified, CachedBody cached) {
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(notModified.headers());
+        if (cached.getContentType() != null) {
+            headers.put("Content-Type", Collections.singletonList(cached.getContentType()));
+        }
+        headers.put("Content-Length", Collections.singletonList(String.valueOf(cached.getBody().length)));
+        return notModified.toBuilder()
+                .status(200)
+                .reason("OK")
+                .headers(headers)
+                .body(cached.getBody())
+                .build();
+    }
+
+    //copies what the decoder reads, keeps the copy once the end of the body is read
+    private final class CopyingInputStream extends FilterInputStream {
+
+        private final String url;
+        private final String etag;
+        private final String contentType;
+        //null once the copy is given up or kept
+        private ByteArrayOutputStream copy;
+
+        private CopyingInputStream(InputStream in, String url, String etag, String contentType, Integer length) {
+            super(in);
+            this.url = url;
+            this.etag = etag;
+            this.contentType = contentType;
+            //grown as it is read, a body the decoder stops reading early never costs its full length
+            this.copy = new ByteArrayOutputStream(length != null ? Math.min(length, COPY_CHUNK) : COPY_CHUNK);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                onEnd();
+            } else if (copy != null) {
+                copy.write(b);
+                checkSize();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int len) throws IOException {
+            int n = super.read(buffer, offset, len);
+            if (n == -1) {
+                onEnd();
+            } else if (copy != null) {
+                copy.write(buffer, offset, n);
+                checkSize();
+            }
+            return n;
+        }
+
+        //skipped bytes are not copied, the copy would be incomplete
+        @Override
+        public long skip(long n) throws IOException {
+            giveUp();
+            return super.skip(n);
+        }
+
+        //closed before the end: the copy held for the URL is older than this body, it goes too
+        @Override
+        public void close() throws IOException {
+            giveUp();
+            super.close();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void checkSize() {
+            if (copy.size() > cache.getMaxBodySize()) {
+                giveUp();
+            }
+        }
+
+        private void giveUp() {
+            if (copy != null) {
+                copy = null;
+                cache.remove(url);
+            }
+        }
+
+        private void onEnd() {
+            if (copy != null) {
+                cache.put(url, etag, contentType, copy.toByteArray());
+                copy = null;
+            }
+        }
+    }
+
+    private static String header(Response response, String name) {
+        Collection<String> values = response.headers().get(name);
+        return values == null || values.isEmpty() ? null : values.iterator().next();
+    }
+}
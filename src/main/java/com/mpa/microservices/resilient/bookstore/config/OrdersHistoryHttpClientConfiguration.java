@@ -0,0 +1,94 @@
+package com.mpa.microservices.resilient.bookstore.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mpa.microservices.resilient.bookstore.clients.FirstElementsDecoder;
+import com.mpa.microservices.resilient.bookstore.clients.PayloadEncoding;
+import com.mpa.microservices.resilient.bookstore.conditional.ConditionalGetCache;
+import com.mpa.microservices.resilient.bookstore.conditional.ConditionalGetFeignClient;
+import com.mpa.microservices.resilient.bookstore.metrics.RecommendationsMetrics;
+import com.mpa.microservices.resilient.bookstore.metrics.TimedFeignClient;
+import feign.Client;
+import feign.Request;
+import feign.RequestInterceptor;
+import feign.codec.Decoder;
+import feign.optionals.OptionalDecoder;
+import feign.httpclient.ApacheHttpClient;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//One pooled keep-alive HTTP client shared by the @FeignClient proxy and the resilient Feign clients,
+// replacing Feign's default HttpURLConnection client, and the @FeignClient proxy's decoder. Requests ask for Smile
+// and gzip (the Apache client sends Accept-Encoding and inflates responses itself) and revalidate kept bodies.
+@Configuration
+public class OrdersHistoryHttpClientConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient ordersHistoryHttpClient(OrdersHistoryHttpClientProperties properties) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                properties.getTimeToLive().toMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) properties.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) properties.getConnectionRequestTimeout().toMillis())
+                .build();
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictIdleConnections(properties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .evictExpiredConnections()
+                .disableCookieManagement();
+        if (!properties.isGzip()) {
+            builder.disableContentCompression();
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public Client feignClient(CloseableHttpClient ordersHistoryHttpClient,
+            RecommendationsMetrics recommendationsMetrics, ConditionalGetCache conditionalGetCache,
+            OrdersHistoryHttpClientProperties properties) {
+        Client client = new TimedFeignClient(new ApacheHttpClient(ordersHistoryHttpClient), recommendationsMetrics);
+        return properties.getConditionalGetMaxSize().toBytes() > 0
+                ? new ConditionalGetFeignClient(client, conditionalGetCache)
+                : client;
+    }
+
+    //picked up by the @FeignClient proxy and the resilient Feign clients alike
+    @Bean
+    public RequestInterceptor acceptSmile(OrdersHistoryHttpClientProperties properties) {
+        return template -> {
+            if (properties.isSmile() && !template.headers().containsKey("Accept")) {
+                template.header("Accept", PayloadEncoding.ACCEPT_SMILE);
+            }
+        };
+    }
+
+    //the decoder spring-cloud-openfeign would create, behind the streaming one for @FirstElements methods; with
+    // jackson-dataformat-smile on the class path its message converters read Smile too
+    @Bean
+    public Decoder feignDecoder(ObjectFactory<HttpMessageConverters> messageConverters, ObjectMapper objectMapper) {
+        return new FirstElementsDecoder(objectMapper.getFactory(), new SmileFactory(),
+                new OptionalDecoder(new ResponseEntityDecoder(new SpringDecoder(messageConverters))));
+    }
+
+    @Bean
+    public Request.Options feignRequestOptions(OrdersHistoryHttpClientProperties properties) {
+        return new Request.Options(properties.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS,
+                properties.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS, true);
+    }
+}
@@ -0,0 +1,116 @@
+package com.mpa.microservices.resilient.bookstore.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.http-client")
+public class OrdersHistoryHttpClientProperties {
+
+    private int maxConnections = 200;
+    private int maxConnectionsPerRoute = 50;
+    private Duration connectTimeout = Duration.ofSeconds(1);
+    private Duration readTimeout = Duration.ofSeconds(2);
+    //how long a pooled connection may wait for a pooled slot before failing
+    private Duration connectionRequestTimeout = Duration.ofMillis(500);
+    //keep-alive connections idle for longer than this are closed by a background evictor
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    private Duration timeToLive = Duration.ofMinutes(5);
+    //ask for Smile before JSON and for gzip, either is used only if order-history-service offers it
+    private boolean smile = true;
+    private boolean gzip = true;
+    //bodies of GET responses with an ETag kept to revalidate with If-None-Match, a 304 is answered from the copy;
+    // maxSize bounds the bodies kept altogether, 0 turns conditional GETs off
+    private DataSize conditionalGetMaxSize = DataSize.ofMegabytes(32);
+    private DataSize conditionalGetMaxBodySize = DataSize.ofKilobytes(256);
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public Duration getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public boolean isSmile() {
+        return smile;
+    }
+
+    public void setSmile(boolean smile) {
+        this.smile = smile;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    public DataSize getConditionalGetMaxSize() {
+        return conditionalGetMaxSize;
+    }
+
+    public void setConditionalGetMaxSize(DataSize conditionalGetMaxSize) {
+        this.conditionalGetMaxSize = conditionalGetMaxSize;
+    }
+
+    public DataSize getConditionalGetMaxBodySize() {
+        return conditionalGetMaxBodySize;
+    }
+
+    public void setConditionalGetMaxBodySize(DataSize conditionalGetMaxBodySize) {
+        this.conditionalGetMaxBodySize = conditionalGetMaxBodySize;
+    }
+}
@@ -0,0 +1,52 @@
+package com.mpa.microservices.resilient.bookstore.config;
+
+import com.mpa.microservices.resilient.bookstore.clients.PayloadEncoding;
+import com.mpa.microservices.resilient.bookstore.conditional.ConditionalGetCache;
+import com.mpa.microservices.resilient.bookstore.conditional.ConditionalGetExchangeFilterFunction;
+import com.mpa.microservices.resilient.bookstore.metrics.RecommendationsMetrics;
+import com.mpa.microservices.resilient.bookstore.metrics.TimedExchangeFilterFunction;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+//Shared WebClient for order-history-service on a fixed, pooled reactor-netty connection provider,
+// sized and timed out with the same recommendations.http-client settings as the Feign clients, and like them asking
+// for Smile and gzip and revalidating kept bodies. WebClient's default codecs read Smile once it is on the class path.
+@Configuration
+public class OrdersHistoryWebClientConfiguration {
+
+    @Bean
+    public WebClient ordersHistoryWebClient(WebClient.Builder webClientBuilder,
+            OrdersHistoryHttpClientProperties properties, RecommendationsMetrics recommendationsMetrics,
+            ConditionalGetCache conditionalGetCache,
+            @Value("${order-history-service.url}") String ordersHistoryServiceUrl) {
+        ConnectionProvider connectionProvider = ConnectionProvider.fixed("order-history-service",
+                properties.getMaxConnections(), properties.getConnectionRequestTimeout().toMillis(),
+                properties.getIdleTimeout());
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .compress(properties.isGzip())
+                .tcpConfiguration(tcpClient -> tcpClient
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                        .doOnConnected(connection -> connection.addHandlerLast(new ReadTimeoutHandler(
+                                properties.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS))));
+        WebClient.Builder builder = webClientBuilder.clone()
+                .baseUrl(ordersHistoryServiceUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient));
+        if (properties.isSmile()) {
+            builder.defaultHeader(HttpHeaders.ACCEPT, PayloadEncoding.ACCEPT_SMILE);
+        }
+        if (properties.getConditionalGetMaxSize().toBytes() > 0) {
+            builder.filter(new ConditionalGetExchangeFilterFunction(conditionalGetCache));
+        }
+        //timed innermost, as the Feign clients are: a 304 counts as the exchange it is
+        return builder.filter(new TimedExchangeFilterFunction(recommendationsMetrics)).build();
+    }
+}
@@ -1,22 +1,33 @@
 package com.mpa.microservices.resilient.bookstore.controllers;
 
+import com.mpa.microservices.resilient.bookstore.scenario.Scenario;
+import com.mpa.microservices.resilient.bookstore.scenario.ScenarioProgress;
+import com.mpa.microservices.resilient.bookstore.scenario.ScenarioRunner;
 import com.mpa.microservices.resilient.bookstore.services.CircuitBreakerRecommendationsService;
+import java.util.Collections;
 import java.util.List;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/recommendations")
 public class CircuitBreakerRecommendationsController {
 
     private CircuitBreakerRecommendationsService circuitBreakerRecommendationsService;
+    private ScenarioRunner scenarioRunner;
 
     public CircuitBreakerRecommendationsController(
-            CircuitBreakerRecommendationsService circuitBreakerRecommendationsService) {
+            CircuitBreakerRecommendationsService circuitBreakerRecommendationsService, ScenarioRunner scenarioRunner) {
         this.circuitBreakerRecommendationsService = circuitBreakerRecommendationsService;
+        this.scenarioRunner = scenarioRunner;
     }
 
     @GetMapping("/withoutCB")
@@ -29,9 +40,15 @@ public class CircuitBreakerRecommendationsController {
         return circuitBreakerRecommendationsService.getRecommendationsWithFallback();
     }
 
-    @GetMapping("/states")
-    public List<String> getRecommendations() {
-        return circuitBreakerRecommendationsService.getRecommendations();
+    //the breaker's way through CLOSED, OPEN and HALF_OPEN over 10 calls a second apart, streamed call by call
+    @GetMapping(path = "/states", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ScenarioProgress>> getStates() {
+        return streamScenarios(Collections.singletonList(new Scenario()));
+    }
+
+    @PostMapping(path = "/scenarios", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ScenarioProgress>> runScenarios(@RequestBody List<Scenario> scenarios) {
+        return streamScenarios(scenarios);
     }
 
     @GetMapping("/annotation")
@@ -49,4 +66,12 @@ public class CircuitBreakerRecommendationsController {
     public List<String> getRecommendationsFeignBuilder() {
         return circuitBreakerRecommendationsService.getRecommendationsFeignBuilder();
     }
+
+    private Flux<ServerSentEvent<ScenarioProgress>> streamScenarios(List<Scenario> scenarios) {
+        return scenarioRunner.run(scenarios)
+                .map(progress -> ServerSentEvent.builder(progress)
+                        .event(progress.getScenario())
+                        .id(String.valueOf(progress.getCall()))
+                        .build());
+    }
 }
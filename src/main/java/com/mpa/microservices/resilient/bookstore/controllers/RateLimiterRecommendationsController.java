@@ -20,7 +20,7 @@ public class RateLimiterRecommendationsController {
 
     @GetMapping("/{id}")
     public List<String> getRecommendationsWithRateLimiterProps(@PathVariable String id) {
-        return rateLimiterRecommendationsService.getOrderHistoryRL(id);
+        return rateLimiterRecommendationsService.getRecommendationsRL(id);
     }
 
     @GetMapping("/webclient")
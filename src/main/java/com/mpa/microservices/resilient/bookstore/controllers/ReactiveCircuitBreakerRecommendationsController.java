@@ -0,0 +1,25 @@
+package com.mpa.microservices.resilient.bookstore.controllers;
+
+import com.mpa.microservices.resilient.bookstore.services.ReactiveRecommendationsService;
+import java.util.List;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/reactive/recommendations")
+public class ReactiveCircuitBreakerRecommendationsController {
+
+    private ReactiveRecommendationsService reactiveRecommendationsService;
+
+    public ReactiveCircuitBreakerRecommendationsController(
+            ReactiveRecommendationsService reactiveRecommendationsService) {
+        this.reactiveRecommendationsService = reactiveRecommendationsService;
+    }
+
+    @GetMapping("/withCB")
+    public Mono<List<String>> getRecommendationsWithFallback() {
+        return reactiveRecommendationsService.getRecommendations();
+    }
+}
@@ -0,0 +1,26 @@
+package com.mpa.microservices.resilient.bookstore.controllers;
+
+import com.mpa.microservices.resilient.bookstore.services.ReactiveRecommendationsService;
+import java.util.List;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/reactive/ratelimiter")
+public class ReactiveRateLimiterRecommendationsController {
+
+    private ReactiveRecommendationsService reactiveRecommendationsService;
+
+    public ReactiveRateLimiterRecommendationsController(
+            ReactiveRecommendationsService reactiveRecommendationsService) {
+        this.reactiveRecommendationsService = reactiveRecommendationsService;
+    }
+
+    @GetMapping("/{id}")
+    public Mono<List<String>> getRecommendationsWithRateLimiterProps(@PathVariable String id) {
+        return reactiveRecommendationsService.getRecommendationsRL(id);
+    }
+}
@@ -0,0 +1,224 @@
+package com.mpa.microservices.resilient.bookstore.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Item to item co-occurrence counts: rows[a].get(b) is the number of users whose history holds both books a and b.
+// Books and users are interned to dense ids, a row is an IntIntHashMap and a user's history an int[] in arrival
+// order. Updates are incremental: only books the user didn't have before are paired with the rest of the user's
+// history, so a history that comes back unchanged costs a lookup under the read lock and no write at all.
+// A user keeps at most maxItemsPerUser books, the oldest one's pairs are taken back out when it is pushed out.
+public class CoOccurrenceIndex {
+
+    private static final int[] NO_ITEMS = new int[0];
+
+    private final int maxItemsPerUser;
+    private final StringInterner items = new StringInterner();
+    private final StringInterner users = new StringInterner();
+    private IntIntHashMap[] rows = new IntIntHashMap[16];
+    private int[][] userItems = new int[16][];
+
+    //kept up to date on every write so the footprint can be read without walking the index
+    private long pairs;
+    private long rowBytes;
+    private long userItemBytes;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    public CoOccurrenceIndex(int maxItemsPerUser) {
+        this.maxItemsPerUser = maxItemsPerUser;
+    }
+
+    //returns false when the history added nothing new, orders are expected oldest first
+    public boolean update(String userId, List<String> orders) {
+        List<String> recent = orders.size() > maxItemsPerUser
+                ? orders.subList(orders.size() - maxItemsPerUser, orders.size())
+                : orders;
+        readLock.lock();
+        try {
+            if (isIndexed(userId, recent)) {
+                return false;
+            }
+        } finally {
+            readLock.unlock();
+        }
+        writeLock.lock();
+        try {
+            return add(userId, recent);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    //books the user doesn't have yet, by their co-occurrence counts with the user's books summed up: how many users
+    // bought each of them together with one of the user's books. Ties go to the book seen first. Empty for unknown
+    // users and for users whose books were never bought together with anything else.
+    public List<String> recommend(String userId, int limit) {
+        readLock.lock();
+        try {
+            int user = users.id(userId);
+            if (user < 0 || limit <= 0) {
+                return Collections.emptyList();
+            }
+            int[] owned = userItems[user];
+            IntIntHashMap scores = new IntIntHashMap(64);
+            for (int item : owned) {
+                IntIntHashMap row = rows[item];
+                if (row == null) {
+                    continue;
+                }
+                for (int slot = 0, capacity = row.capacity(); slot < capacity; slot++) {
+                    int other = row.keyAt(slot);
+                    if (other >= 0) {
+                        scores.addTo(other, row.valueAt(slot));
+                    }
+                }
+            }
+            return top(scores, owned, limit);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public IndexFootprint footprint() {
+        readLock.lock();
+        try {
+            long bytes = rowBytes + userItemBytes + items.sizeInBytes() + users.sizeInBytes()
+                    + 2 * 16 + 4L * rows.length + 4L * userItems.length;
+            return new IndexFootprint(items.size(), users.size(), pairs, bytes);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    //called holding the read lock
+    private boolean isIndexed(String userId, List<String> orders) {
+        int user = users.id(userId);
+        if (user < 0) {
+            return orders.isEmpty();
+        }
+        for (String order : orders) {
+            int item = items.id(order);
+            if (item < 0 || !contains(userItems[user], item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //called holding the write lock
+    private boolean add(String userId, List<String> orders) {
+        int user = users.intern(userId);
+        if (user == userItems.length) {
+            userItems = Arrays.copyOf(userItems, 2 * userItems.length);
+        }
+        int[] owned = userItems[user] == null ? NO_ITEMS : userItems[user];
+        int[] before = owned;
+        for (String order : orders) {
+            int item = items.intern(order);
+            if (item == rows.length) {
+                rows = Arrays.copyOf(rows, 2 * rows.length);
+            }
+            if (contains(owned, item)) {
+                continue;
+            }
+            if (owned.length == maxItemsPerUser) {
+                int oldest = owned[0];
+                owned = Arrays.copyOfRange(owned, 1, owned.length);
+                for (int other : owned) {
+                    pair(oldest, other, -1);
+                }
+            }
+            for (int other : owned) {
+                pair(item, other, 1);
+            }
+            owned = Arrays.copyOf(owned, owned.length + 1);
+            owned[owned.length - 1] = item;
+        }
+        userItems[user] = owned;
+        userItemBytes += arrayBytes(owned) - (before == NO_ITEMS ? 0 : arrayBytes(before));
+        return owned != before;
+    }
+
+    private void pair(int item, int other, int delta) {
+        count(item, other, delta);
+        int value = count(other, item, delta);
+        if (delta > 0 && value == delta) {
+            pairs++;
+        } else if (delta < 0 && value == 0) {
+            pairs--;
+        }
+    }
+
+    private int count(int item, int other, int delta) {
+        IntIntHashMap row = rows[item];
+        if (row == null) {
+            row = new IntIntHashMap();
+            rows[item] = row;
+        } else {
+            rowBytes -= row.sizeInBytes();
+        }
+        int value = row.addTo(other, delta);
+        if (row.size() == 0) {
+            rows[item] = null;
+        } else {
+            rowBytes += row.sizeInBytes();
+        }
+        return value;
+    }
+
+    //limit is small, so a sorted insert into two parallel arrays beats a heap
+    private List<String> top(IntIntHashMap scores, int[] owned, int limit) {
+        int[] topItems = new int[limit];
+        int[] topScores = new int[limit];
+        int found = 0;
+        for (int slot = 0, capacity = scores.capacity(); slot < capacity; slot++) {
+            int item = scores.keyAt(slot);
+            if (item < 0) {
+                continue;
+            }
+            int score = scores.valueAt(slot);
+            int position = found;
+            while (position > 0 && ranksBefore(score, item, topScores[position - 1], topItems[position - 1])) {
+                position--;
+            }
+            if (position == limit || contains(owned, item)) {
+                continue;
+            }
+            int last = Math.min(found, limit - 1);
+            System.arraycopy(topItems, position, topItems, position + 1, last - position);
+            System.arraycopy(topScores, position, topScores, position + 1, last - position);
+            topItems[position] = item;
+            topScores[position] = score;
+            found = Math.min(found + 1, limit);
+        }
+        List<String> recommendations = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            recommendations.add(items.name(topItems[i]));
+        }
+        return recommendations;
+    }
+
+    private static boolean ranksBefore(int score, int item, int otherScore, int otherItem) {
+        return score > otherScore || score == otherScore && item < otherItem;
+    }
+
+    private static boolean contains(int[] owned, int item) {
+        for (int ownedItem : owned) {
+            if (ownedItem == item) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long arrayBytes(int[] array) {
+        return 16 + 4L * array.length;
+    }
+}
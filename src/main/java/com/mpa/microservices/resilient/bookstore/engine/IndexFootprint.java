@@ -0,0 +1,41 @@
+package com.mpa.microservices.resilient.bookstore.engine;
+
+//Size of the co-occurrence index. bytes is an estimate for a 64-bit JVM with compressed oops, computed from array
+// lengths rather than measured, so it is cheap enough to be a gauge.
+public class IndexFootprint {
+
+    private final int items;
+    private final int users;
+    private final long pairs;
+    private final long bytes;
+
+    public IndexFootprint(int items, int users, long pairs, long bytes) {
+        this.items = items;
+        this.users = users;
+        this.pairs = pairs;
+        this.bytes = bytes;
+    }
+
+    public int getItems() {
+        return items;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    //distinct pairs of books bought by the same user
+    public long getPairs() {
+        return pairs;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d items, %,d users, %,d pairs, ~%,d MB (%.1f bytes per pair)", items, users, pairs,
+                bytes >> 20, pairs == 0 ? 0.0 : (double) bytes / pairs);
+    }
+}
@@ -0,0 +1,154 @@
+package com.mpa.microservices.resilient.bookstore.engine;
+
+//Open addressing map from non-negative int keys to int values. Keys (stored as key + 1, so 0 marks a free slot) and
+// values are interleaved in one array: a row of the co-occurrence index is two objects whatever its size, and
+// nothing is boxed. Linear probing, entries whose value drops to 0 are removed by shifting their cluster back.
+// Not thread safe.
+public class IntIntHashMap {
+
+    private static final int FREE = 0;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] slots;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public IntIntHashMap() {
+        this(4);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    //0 when absent
+    public int get(int key) {
+        int index = indexOf(key);
+        return index < 0 ? 0 : slots[2 * index + 1];
+    }
+
+    //returns the new value, the entry is removed once it reaches 0
+    public int addTo(int key, int delta) {
+        int stored = key + 1;
+        int index = hash(key) & mask;
+        while (true) {
+            int current = slots[2 * index];
+            if (current == stored) {
+                int value = slots[2 * index + 1] + delta;
+                if (value == 0) {
+                    removeAt(index);
+                } else {
+                    slots[2 * index + 1] = value;
+                }
+                return value;
+            }
+            if (current == FREE) {
+                if (delta == 0) {
+                    return 0;
+                }
+                slots[2 * index] = stored;
+                slots[2 * index + 1] = delta;
+                if (++size > resizeAt) {
+                    allocate(2 * (mask + 1));
+                }
+                return delta;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //slots are iterated with capacity(), keyAt() and valueAt(), keyAt() is -1 for a free slot
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public int keyAt(int slot) {
+        return slots[2 * slot] - 1;
+    }
+
+    public int valueAt(int slot) {
+        return slots[2 * slot + 1];
+    }
+
+    //estimate with compressed oops: object header and fields, plus the array header and its ints
+    public long sizeInBytes() {
+        return 32 + 16 + 4L * slots.length;
+    }
+
+    private int indexOf(int key) {
+        int stored = key + 1;
+        int index = hash(key) & mask;
+        while (true) {
+            int current = slots[2 * index];
+            if (current == stored) {
+                return index;
+            }
+            if (current == FREE) {
+                return -1;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    //backward shift deletion: later entries of the cluster that may live in the freed slot are moved into it
+    private void removeAt(int index) {
+        int free = index;
+        int next = index;
+        while (true) {
+            next = (next + 1) & mask;
+            int stored = slots[2 * next];
+            if (stored == FREE) {
+                break;
+            }
+            int home = hash(stored - 1) & mask;
+            boolean homeBetween = free <= next ? free < home && home <= next : free < home || home <= next;
+            if (!homeBetween) {
+                slots[2 * free] = stored;
+                slots[2 * free + 1] = slots[2 * next + 1];
+                free = next;
+            }
+        }
+        slots[2 * free] = FREE;
+        slots[2 * free + 1] = 0;
+        size--;
+    }
+
+    private void allocate(int capacity) {
+        int[] old = slots;
+        slots = new int[2 * capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+        if (old == null) {
+            return;
+        }
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != FREE) {
+                int index = hash(old[i] - 1) & mask;
+                while (slots[2 * index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                slots[2 * index] = old[i];
+                slots[2 * index + 1] = old[i + 1];
+            }
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 4;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    //ids are dense and sequential, spread them before masking
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
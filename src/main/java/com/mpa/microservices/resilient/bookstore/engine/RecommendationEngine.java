@@ -0,0 +1,31 @@
+package com.mpa.microservices.resilient.bookstore.engine;
+
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+//Recommends books from the order histories seen so far: every per-user history loaded from order-history-service
+// is added to the co-occurrence index as it arrives.
+@Component
+public class RecommendationEngine {
+
+    private CoOccurrenceIndex index;
+    private int limit;
+
+    public RecommendationEngine(RecommendationEngineProperties properties) {
+        this.index = new CoOccurrenceIndex(properties.getMaxItemsPerUser());
+        this.limit = properties.getLimit();
+    }
+
+    public void onOrderHistory(String userId, List<String> orders) {
+        index.update(userId, orders);
+    }
+
+    //empty until the user's books have been bought together with others
+    public List<String> recommend(String userId) {
+        return index.recommend(userId, limit);
+    }
+
+    public IndexFootprint footprint() {
+        return index.footprint();
+    }
+}
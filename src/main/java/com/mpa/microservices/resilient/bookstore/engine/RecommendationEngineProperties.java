@@ -0,0 +1,30 @@
+package com.mpa.microservices.resilient.bookstore.engine;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.engine")
+public class RecommendationEngineProperties {
+
+    //recommendations returned per user
+    private int limit = 2;
+    //books kept per user, older ones stop counting towards co-occurrences
+    private int maxItemsPerUser = 200;
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public int getMaxItemsPerUser() {
+        return maxItemsPerUser;
+    }
+
+    public void setMaxItemsPerUser(int maxItemsPerUser) {
+        this.maxItemsPerUser = maxItemsPerUser;
+    }
+}
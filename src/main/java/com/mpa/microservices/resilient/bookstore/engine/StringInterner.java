@@ -0,0 +1,86 @@
+package com.mpa.microservices.resilient.bookstore.engine;
+
+import java.util.Arrays;
+
+//Gives every distinct string a dense int id (0, 1, 2, ...) so the index can work on ints and arrays indexed by id.
+// Ids are never reused. Open addressing on the string hash, not thread safe.
+public class StringInterner {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private String[] keys = new String[16];
+    private int[] ids = new int[16];
+    private String[] names = new String[16];
+    private int size;
+    private long stringBytes;
+
+    //-1 when the string has no id yet
+    public int id(String name) {
+        int index = indexOf(name);
+        return keys[index] == null ? -1 : ids[index];
+    }
+
+    public int intern(String name) {
+        int index = indexOf(name);
+        if (keys[index] != null) {
+            return ids[index];
+        }
+        int id = size++;
+        keys[index] = name;
+        ids[index] = id;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, 2 * names.length);
+        }
+        names[id] = name;
+        //String object plus its byte[], 8 byte aligned
+        stringBytes += 24 + align(16 + name.length());
+        if (size > keys.length * LOAD_FACTOR) {
+            rehash();
+        }
+        return id;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //estimate with compressed oops: the three arrays plus the strings themselves (Latin-1, compact strings)
+    public long sizeInBytes() {
+        return 3 * 16 + 4L * keys.length + 4L * ids.length + 4L * names.length + stringBytes;
+    }
+
+    private int indexOf(String name) {
+        int mask = keys.length - 1;
+        int index = spread(name.hashCode()) & mask;
+        while (keys[index] != null && !keys[index].equals(name)) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash() {
+        String[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new String[2 * oldKeys.length];
+        ids = new int[2 * oldKeys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                ids[index] = oldIds[i];
+            }
+        }
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
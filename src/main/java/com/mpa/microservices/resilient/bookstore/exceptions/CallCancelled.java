@@ -0,0 +1,9 @@
+package com.mpa.microservices.resilient.bookstore.exceptions;
+
+//the caller stopped waiting for an order-history call, e.g. the losing attempt of a hedged call
+public class CallCancelled extends RuntimeException {
+
+    public CallCancelled(String message) {
+        super(message, null, false, false);
+    }
+}
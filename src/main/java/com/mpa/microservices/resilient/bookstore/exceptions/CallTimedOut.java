@@ -0,0 +1,8 @@
+package com.mpa.microservices.resilient.bookstore.exceptions;
+
+public class CallTimedOut extends RuntimeException {
+
+    public CallTimedOut(String message) {
+        super(message, null, false, false);
+    }
+}
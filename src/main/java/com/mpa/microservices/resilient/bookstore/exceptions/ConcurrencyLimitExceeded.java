@@ -0,0 +1,8 @@
+package com.mpa.microservices.resilient.bookstore.exceptions;
+
+public class ConcurrencyLimitExceeded extends RuntimeException {
+
+    public ConcurrencyLimitExceeded(String message) {
+        super(message, null, false, false);
+    }
+}
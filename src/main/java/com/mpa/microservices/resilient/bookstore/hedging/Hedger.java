@@ -0,0 +1,207 @@
+package com.mpa.microservices.resilient.bookstore.hedging;
+
+import com.mpa.microservices.resilient.bookstore.hedging.HedgingProperties.HedgeConfig;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//Sends a second attempt when the first one hasn't answered within the hedge delay and returns whichever succeeds
+// first. The other one is interrupted: OrdersHistoryIsolation then cancels its call and fails it with CallCancelled,
+// which the circuit breakers and adaptive limiters ignore, see OrdersHistoryIsolation for what a call already on the
+// wire keeps holding. Only for idempotent calls: both attempts may reach order-history-service.
+// Hedges are paid from a token bucket refilled by maxHedgeRatio per call, so they never exceed that share of
+// traffic. The attempt passed in must carry the circuit breaker and rate limiter, so hedges go through them too.
+// Attempts run on the registry's bounded pool, so the caller can wait for either; with the pool full a call runs
+// unhedged on the caller's thread and no hedge is sent.
+public class Hedger {
+
+    private static final int WINDOW = 1024;
+    private static final int RECOMPUTE_EVERY = 128;
+    private static final long TOKEN = 1000;
+
+    private final String name;
+    private final HedgeConfig config;
+    private final Executor executor;
+    private final long refillPerCall;
+    private final long maxTokens;
+    private final AtomicLong tokens;
+
+    //latency samples of successful attempts, written racily on purpose: a torn slot only skews one sample
+    private final long[] samples = new long[WINDOW];
+    private final AtomicLong sampleCount = new AtomicLong();
+    private volatile long percentileNanos;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder budgetDenied = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public Hedger(String name, HedgeConfig config, Executor executor) {
+        this.name = name;
+        this.config = config;
+        this.executor = executor;
+        this.refillPerCall = Math.round(config.getMaxHedgeRatio() * TOKEN);
+        this.maxTokens = config.getMaxBurst() * TOKEN;
+        this.tokens = new AtomicLong(maxTokens);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public <T> Supplier<T> decorateSupplier(Supplier<T> call) {
+        return () -> execute(call);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        if (!config.isEnabled()) {
+            return call.get();
+        }
+        onCall();
+        CompletionService<T> attempts = new ExecutorCompletionService<>(executor);
+        List<Future<T>> futures = new ArrayList<>(2);
+        try {
+            futures.add(attempts.submit(timed(call)));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return call.get();
+        }
+        try {
+            Future<T> completed = attempts.poll(getDelayNanos(), TimeUnit.NANOSECONDS);
+            if (completed == null && tryAcquireHedge()) {
+                try {
+                    futures.add(attempts.submit(timed(call)));
+                } catch (RejectedExecutionException e) {
+                    rejected.increment();
+                }
+            }
+            Throwable failure = null;
+            for (int remaining = futures.size(); remaining > 0; remaining--) {
+                if (completed == null) {
+                    completed = attempts.take();
+                }
+                try {
+                    T result = completed.get();
+                    if (completed != futures.get(0)) {
+                        onHedgeWin();
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    //the other attempt may still succeed
+                    failure = e.getCause();
+                }
+                completed = null;
+            }
+            throw rethrow(failure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } finally {
+            //a no-op for the attempt that answered
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    public long getDelayNanos() {
+        long fixedDelay = config.getDelay().toNanos();
+        if (config.getDelayPercentile() <= 0 || sampleCount.get() < config.getMinSamples()) {
+            return fixedDelay;
+        }
+        return Math.max(config.getMinDelay().toNanos(), percentileNanos);
+    }
+
+    public void onCall() {
+        calls.increment();
+        while (true) {
+            long current = tokens.get();
+            long next = Math.min(maxTokens, current + refillPerCall);
+            if (current == next || tokens.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    public boolean tryAcquireHedge() {
+        while (true) {
+            long current = tokens.get();
+            if (current < TOKEN) {
+                budgetDenied.increment();
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - TOKEN)) {
+                hedged.increment();
+                return true;
+            }
+        }
+    }
+
+    public void onHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    public void recordLatency(long nanos) {
+        long index = sampleCount.getAndIncrement();
+        samples[(int) (index % WINDOW)] = nanos;
+        if (index % RECOMPUTE_EVERY == RECOMPUTE_EVERY - 1) {
+            long[] window = Arrays.copyOf(samples, (int) Math.min(index + 1, WINDOW));
+            Arrays.sort(window);
+            percentileNanos = window[(int) Math.min(window.length - 1, window.length * config.getDelayPercentile())];
+        }
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getHedged() {
+        return hedged.sum();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    public long getBudgetDenied() {
+        return budgetDenied.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private <T> Callable<T> timed(Supplier<T> call) {
+        return () -> {
+            long start = System.nanoTime();
+            T result = call.get();
+            recordLatency(System.nanoTime() - start);
+            return result;
+        };
+    }
+
+    private static RuntimeException rethrow(Throwable failure) {
+        if (failure instanceof RuntimeException) {
+            return (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return new CompletionException(failure);
+    }
+}
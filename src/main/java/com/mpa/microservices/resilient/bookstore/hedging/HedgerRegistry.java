@@ -0,0 +1,45 @@
+package com.mpa.microservices.resilient.bookstore.hedging;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+@Component
+public class HedgerRegistry {
+
+    private final ConcurrentMap<String, Hedger> hedgers = new ConcurrentHashMap<>();
+    private HedgingProperties hedgingProperties;
+    private ExecutorService executor;
+
+    public HedgerRegistry(HedgingProperties hedgingProperties) {
+        this.hedgingProperties = hedgingProperties;
+        AtomicInteger threadCount = new AtomicInteger();
+        //no queue: an attempt that finds every thread busy is rejected, and Hedger runs the call unhedged instead
+        this.executor = new ThreadPoolExecutor(0, hedgingProperties.getMaxThreads(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "orders-history-hedge-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public Hedger hedger(String name) {
+        return hedgers.computeIfAbsent(name, key -> new Hedger(key, hedgingProperties.getConfig(key), executor));
+    }
+
+    public Collection<Hedger> getAllHedgers() {
+        return hedgers.values();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
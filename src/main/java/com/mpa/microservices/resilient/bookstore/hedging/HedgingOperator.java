@@ -0,0 +1,72 @@
+package com.mpa.microservices.resilient.bookstore.hedging;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//Reactor counterpart of Hedger.execute: the hedge is a second subscription to the same Mono, so it goes through
+// every operator applied before this one. Cancelling the loser cancels its HTTP exchange.
+public class HedgingOperator<T> implements UnaryOperator<Mono<T>> {
+
+    private final Hedger hedger;
+
+    private HedgingOperator(Hedger hedger) {
+        this.hedger = hedger;
+    }
+
+    public static <T> HedgingOperator<T> of(Hedger hedger) {
+        return new HedgingOperator<>(hedger);
+    }
+
+    @Override
+    public Mono<T> apply(Mono<T> mono) {
+        if (!hedger.isEnabled()) {
+            return mono;
+        }
+        return Mono.defer(() -> {
+            hedger.onCall();
+            AtomicBoolean primaryDone = new AtomicBoolean();
+            //attempts sent and not yet failed, like Hedger.execute an attempt's error only surfaces once it is the
+            // last one: until then the other attempt may still answer
+            AtomicInteger inFlight = new AtomicInteger(1);
+            Mono<T> primary = timed(mono)
+                    .doFinally(signal -> primaryDone.set(true))
+                    .onErrorResume(error -> lastAttemptFailed(inFlight, error));
+            //no hedge once the first attempt has ended, a failed first attempt is not retried here
+            Mono<T> hedge = Mono.delay(Duration.ofNanos(hedger.getDelayNanos()))
+                    .filter(tick -> !primaryDone.get() && hedger.tryAcquireHedge() && sendHedge(inFlight))
+                    .flatMap(tick -> timed(mono)
+                            .doOnNext(value -> hedger.onHedgeWin())
+                            .onErrorResume(error -> lastAttemptFailed(inFlight, error)));
+            //first value wins and cancels the other attempt
+            return Flux.merge(primary, hedge).next();
+        });
+    }
+
+    //fails when the first attempt has already failed, so a hedge is never sent after the outcome is decided
+    private static boolean sendHedge(AtomicInteger inFlight) {
+        while (true) {
+            int current = inFlight.get();
+            if (current == 0) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static <T> Mono<T> lastAttemptFailed(AtomicInteger inFlight, Throwable error) {
+        return inFlight.decrementAndGet() == 0 ? Mono.error(error) : Mono.empty();
+    }
+
+    private Mono<T> timed(Mono<T> mono) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return mono.doOnNext(value -> hedger.recordLatency(System.nanoTime() - start));
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package com.mpa.microservices.resilient.bookstore.hedging;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.hedging")
+public class HedgingProperties {
+
+    private Map<String, HedgeConfig> instances = new HashMap<>();
+    //threads running the attempts of every hedger together, hedged calls beyond them run unhedged
+    private int maxThreads = 50;
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public void setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    public Map<String, HedgeConfig> getInstances() {
+        return instances;
+    }
+
+    public void setInstances(Map<String, HedgeConfig> instances) {
+        this.instances = instances;
+    }
+
+    public HedgeConfig getConfig(String name) {
+        return instances.getOrDefault(name, new HedgeConfig());
+    }
+
+    public static class HedgeConfig {
+
+        private boolean enabled;
+        //how long the first attempt gets before the hedge is sent, until minSamples latencies have been seen
+        private Duration delay = Duration.ofMillis(50);
+        //afterwards the delay follows this percentile of the observed latency, 0 keeps the fixed delay
+        private double delayPercentile = 0.95;
+        private int minSamples = 100;
+        private Duration minDelay = Duration.ofMillis(5);
+        //hedges may add at most this share of extra calls, plus a burst of maxBurst
+        private double maxHedgeRatio = 0.05;
+        private int maxBurst = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getDelay() {
+            return delay;
+        }
+
+        public void setDelay(Duration delay) {
+            this.delay = delay;
+        }
+
+        public double getDelayPercentile() {
+            return delayPercentile;
+        }
+
+        public void setDelayPercentile(double delayPercentile) {
+            this.delayPercentile = delayPercentile;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public double getMaxHedgeRatio() {
+            return maxHedgeRatio;
+        }
+
+        public void setMaxHedgeRatio(double maxHedgeRatio) {
+            this.maxHedgeRatio = maxHedgeRatio;
+        }
+
+        public int getMaxBurst() {
+            return maxBurst;
+        }
+
+        public void setMaxBurst(int maxBurst) {
+            this.maxBurst = maxBurst;
+        }
+    }
+}
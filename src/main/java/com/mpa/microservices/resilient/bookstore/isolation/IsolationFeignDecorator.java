@@ -0,0 +1,33 @@
+package com.mpa.microservices.resilient.bookstore.isolation;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import io.github.resilience4j.feign.FeignDecorator;
+import io.vavr.CheckedFunction1;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletionException;
+
+//Isolates the Feign call itself, the innermost decoration: the breaker and rate limiter outside record a timed out
+// call like any other failure, and waiting for a permit doesn't use up the time limit. Named after the method.
+public class IsolationFeignDecorator implements FeignDecorator {
+
+    private final OrdersHistoryIsolation isolation;
+
+    public IsolationFeignDecorator(OrdersHistoryIsolation isolation) {
+        this.isolation = isolation;
+    }
+
+    @Override
+    public CheckedFunction1<Object[], Object> decorate(CheckedFunction1<Object[], Object> invocationCall,
+            Method method, MethodHandler methodHandler, Target<?> target) {
+        return args -> isolation.execute(method.getName(), () -> {
+            try {
+                return invocationCall.apply(args);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.mpa.microservices.resilient.bookstore.isolation;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.isolation")
+public class IsolationProperties {
+
+    private Mode mode = Mode.SEMAPHORE;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public enum Mode {
+        //resilience4j.bulkhead instance caps concurrent calls, each call gets a platform thread
+        SEMAPHORE,
+        //resilience4j.thread-pool-bulkhead instance runs the calls on its own threads and queue
+        THREAD_POOL,
+        //resilience4j.bulkhead instance caps concurrent calls, each call gets a virtual thread (Java 21+),
+        // falls back to SEMAPHORE on older runtimes
+        VIRTUAL_THREADS
+    }
+}
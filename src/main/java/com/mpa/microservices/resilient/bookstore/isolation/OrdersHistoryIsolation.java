@@ -0,0 +1,156 @@
+package com.mpa.microservices.resilient.bookstore.isolation;
+
+import com.mpa.microservices.resilient.bookstore.exceptions.CallCancelled;
+import com.mpa.microservices.resilient.bookstore.exceptions.CallTimedOut;
+import com.mpa.microservices.resilient.bookstore.isolation.IsolationProperties.Mode;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+//Bulkhead ( TimeLimiter ( Function ) ) per OrdersHistoryClient method, the bulkhead, thread-pool-bulkhead and
+// timelimiter instances are named after the method. The call runs on another thread, so a hung order-history call
+// costs the request thread at most the TimeLimiter timeout, while the bulkhead bounds how many abandoned calls
+// can pile up behind it until Feign's readTimeout ends them.
+// A caller interrupted while waiting (a losing hedged attempt) cancels the call: one not started yet gives its bulkhead
+// permit back at once, a running one is interrupted, which ends a wait for a pooled connection but not a blocking
+// socket read, so that call keeps its permit until it answers or readTimeout ends it. In THREAD_POOL mode the call
+// always runs to its end, resilience4j's thread pool bulkhead can't be cancelled.
+@Component
+public class OrdersHistoryIsolation {
+
+    private static final Logger log = LoggerFactory.getLogger(OrdersHistoryIsolation.class);
+
+    private BulkheadRegistry bulkheadRegistry;
+    private ThreadPoolBulkheadRegistry threadPoolBulkheadRegistry;
+    private TimeLimiterRegistry timeLimiterRegistry;
+    private Mode mode;
+    private ExecutorService executor;
+
+    public OrdersHistoryIsolation(IsolationProperties isolationProperties, BulkheadRegistry bulkheadRegistry,
+            ThreadPoolBulkheadRegistry threadPoolBulkheadRegistry, TimeLimiterRegistry timeLimiterRegistry) {
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.threadPoolBulkheadRegistry = threadPoolBulkheadRegistry;
+        this.timeLimiterRegistry = timeLimiterRegistry;
+        this.mode = isolationProperties.getMode();
+        if (mode == Mode.VIRTUAL_THREADS) {
+            this.executor = virtualThreadExecutor();
+        }
+        if (executor == null) {
+            this.executor = platformThreadExecutor();
+        }
+    }
+
+    public <T> Supplier<T> decorateSupplier(String name, Supplier<T> call) {
+        return () -> execute(name, call);
+    }
+
+    public <T> T execute(String name, Supplier<T> call) {
+        TimeLimiter timeLimiter = timeLimiterRegistry.timeLimiter(name);
+        AtomicReference<Future<T>> submitted = new AtomicReference<>();
+        Supplier<Future<T>> futureSupplier = () -> {
+            Future<T> future = mode == Mode.THREAD_POOL
+                    ? threadPoolBulkheadRegistry.bulkhead(name).executeSupplier(call).toCompletableFuture()
+                    : submit(bulkheadRegistry.bulkhead(name), call);
+            submitted.set(future);
+            return future;
+        };
+        try {
+            return timeLimiter.executeFutureSupplier(futureSupplier);
+        } catch (TimeoutException e) {
+            throw new CallTimedOut(name + " did not complete within "
+                    + timeLimiter.getTimeLimiterConfig().getTimeoutDuration());
+        } catch (InterruptedException e) {
+            //the TimeLimiter passes the interrupt on without cancelling what it waited for
+            Future<T> future = submitted.get();
+            if (future != null) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new CallCancelled(name + " was cancelled");
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new CompletionException(e);
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> Future<T> submit(Bulkhead bulkhead, Supplier<T> call) {
+        bulkhead.acquirePermission();
+        //whichever comes first, the call starting or being cancelled before it started, owns the permit
+        AtomicBoolean started = new AtomicBoolean();
+        FutureTask<T> task = new FutureTask<T>(() -> {
+            if (!started.compareAndSet(false, true)) {
+                return null;
+            }
+            //the permit is held until the call really ends, not until the caller stops waiting for it
+            try {
+                return call.get();
+            } finally {
+                bulkhead.onComplete();
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (isCancelled() && started.compareAndSet(false, true)) {
+                    bulkhead.releasePermission();
+                }
+            }
+        };
+        try {
+            executor.execute(task);
+            return task;
+        } catch (RejectedExecutionException e) {
+            bulkhead.releasePermission();
+            throw e;
+        }
+    }
+
+    //looked up reflectively, the build targets Java 9
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads need Java 21 or later, order-history calls run on platform threads");
+            return null;
+        }
+    }
+
+    //unbounded, the bulkhead already caps how many calls can be running
+    private static ExecutorService platformThreadExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "orders-history-call-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.mpa.microservices.resilient.bookstore.limiter;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface AdaptiveConcurrencyLimit {
+
+    String name();
+}
@@ -0,0 +1,40 @@
+package com.mpa.microservices.resilient.bookstore.limiter;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+//Same position as the resilience4j Bulkhead aspect: innermost, so only calls that really reach the method
+// are limited and measured.
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class AdaptiveConcurrencyLimitAspect {
+
+    private AdaptiveLimiterRegistry adaptiveLimiterRegistry;
+
+    public AdaptiveConcurrencyLimitAspect(AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        this.adaptiveLimiterRegistry = adaptiveLimiterRegistry;
+    }
+
+    @Around("@annotation(limit)")
+    public Object limit(ProceedingJoinPoint joinPoint, AdaptiveConcurrencyLimit limit) throws Throwable {
+        AdaptiveConcurrencyLimiter limiter = adaptiveLimiterRegistry.limiter(limit.name());
+        if (!limiter.acquire()) {
+            throw limiter.limitExceeded();
+        }
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            limiter.onError(e);
+            throw e;
+        }
+        limiter.onSuccess(System.nanoTime() - start);
+        return result;
+    }
+}
@@ -0,0 +1,209 @@
+package com.mpa.microservices.resilient.bookstore.limiter;
+
+import com.mpa.microservices.resilient.bookstore.exceptions.CallTimedOut;
+import com.mpa.microservices.resilient.bookstore.exceptions.CallUnsuccessful;
+import com.mpa.microservices.resilient.bookstore.exceptions.ConcurrencyLimitExceeded;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveLimiterProperties.LimiterConfig;
+import feign.FeignException;
+import feign.RetryableException;
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+//AIMD concurrency limit: the number of calls allowed in flight grows by ~1 per round trip while latency stays
+// within rttTolerance of the best latency seen, and shrinks by backoffRatio on downstream failures (see onError) or
+// queueing latency, at most once per minimum round trip so a burst of slow responses counts as one congestion signal.
+// limit updates are racy on purpose, a lost update only delays convergence by one sample.
+// One limiter per downstream endpoint: calls with different latencies would share one minimum latency.
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final LimiterConfig config;
+    private final long maxWaitNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private volatile double limit;
+    private volatile long minRttNanos = Long.MAX_VALUE;
+    private volatile long samples;
+    private volatile long lastDecreaseNanos = System.nanoTime();
+
+    public AdaptiveConcurrencyLimiter(String name, LimiterConfig config) {
+        this.name = name;
+        this.config = config;
+        this.maxWaitNanos = config.getMaxWait().toNanos();
+        this.limit = config.getInitialLimit();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean acquire() {
+        if (tryAcquire()) {
+            return true;
+        }
+        if (maxWaitNanos <= 0) {
+            return false;
+        }
+        long remaining = maxWaitNanos;
+        lock.lock();
+        try {
+            while (!tryAcquire()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(long rttNanos) {
+        try {
+            long minRtt = updateMinRtt(rttNanos);
+            double current = limit;
+            if (rttNanos > minRtt * config.getRttTolerance()) {
+                backOff(minRtt);
+            } else if (inFlight.get() * 2 >= current) {
+                //only grow while the current limit is actually being used
+                limit = Math.min(config.getMaxLimit(), current + 1 / current);
+            }
+        } finally {
+            release();
+        }
+    }
+
+    public void onDropped() {
+        try {
+            backOff(minRttNanos);
+        } finally {
+            release();
+        }
+    }
+
+    //the call ended without telling anything about the downstream (e.g. cancelled)
+    public void onIgnored() {
+        release();
+    }
+
+    //only timeouts, I/O errors and 5xx answers are overload signals; a local rejection (bulkhead, rate limiter,
+    // breaker) or a 4xx answer releases the slot without shrinking the limit
+    public void onError(Throwable error) {
+        if (isOverload(error)) {
+            onDropped();
+        } else {
+            onIgnored();
+        }
+    }
+
+    public <T> Supplier<T> decorateSupplier(Supplier<T> supplier) {
+        return () -> {
+            if (!acquire()) {
+                throw limitExceeded();
+            }
+            long start = System.nanoTime();
+            T result;
+            try {
+                result = supplier.get();
+            } catch (RuntimeException | Error e) {
+                onError(e);
+                throw e;
+            }
+            onSuccess(System.nanoTime() - start);
+            return result;
+        };
+    }
+
+    public ConcurrencyLimitExceeded limitExceeded() {
+        return new ConcurrencyLimitExceeded("Concurrency limit " + getLimit() + " of '" + name + "' exceeded");
+    }
+
+    //before the first sample there is no round trip to wait for, so the first drop backs off right away
+    private void backOff(long minRtt) {
+        long now = System.nanoTime();
+        if (minRtt != Long.MAX_VALUE && now - lastDecreaseNanos <= minRtt) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+    }
+
+    static boolean isOverload(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof CallTimedOut
+                || cause instanceof TimeoutException
+                || cause instanceof IOException
+                || cause instanceof CallUnsuccessful
+                //connection failures and Retry-After answers
+                || cause instanceof RetryableException
+                || cause instanceof FeignException && ((FeignException) cause).status() >= 500
+                || cause instanceof WebClientResponseException
+                && ((WebClientResponseException) cause).getStatusCode().is5xxServerError();
+    }
+
+    private long updateMinRtt(long rttNanos) {
+        long count = samples + 1;
+        samples = count;
+        long minRtt = minRttNanos;
+        if (count % config.getMinRttResetSamples() == 0 || rttNanos < minRtt) {
+            minRttNanos = rttNanos;
+            return rttNanos;
+        }
+        return minRtt;
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        if (maxWaitNanos > 0) {
+            signalWaiter();
+        }
+    }
+
+    private void signalWaiter() {
+        //waiters re-check under the lock before awaiting, so taking it here can't lose a wakeup
+        lock.lock();
+        try {
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.mpa.microservices.resilient.bookstore.limiter;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import io.github.resilience4j.feign.FeignDecorator;
+import io.vavr.CheckedFunction1;
+import java.lang.reflect.Method;
+
+//Limits each client method on the limiter named after it, like the bulkheads and time limiters of
+// OrdersHistoryIsolation.
+public class AdaptiveLimiterFeignDecorator implements FeignDecorator {
+
+    private final AdaptiveLimiterRegistry adaptiveLimiterRegistry;
+
+    public AdaptiveLimiterFeignDecorator(AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        this.adaptiveLimiterRegistry = adaptiveLimiterRegistry;
+    }
+
+    @Override
+    public CheckedFunction1<Object[], Object> decorate(CheckedFunction1<Object[], Object> invocationCall,
+            Method method, MethodHandler methodHandler, Target<?> target) {
+        AdaptiveConcurrencyLimiter limiter = adaptiveLimiterRegistry.limiter(method.getName());
+        return args -> {
+            if (!limiter.acquire()) {
+                throw limiter.limitExceeded();
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invocationCall.apply(args);
+            } catch (Throwable e) {
+                limiter.onError(e);
+                throw e;
+            }
+            limiter.onSuccess(System.nanoTime() - start);
+            return result;
+        };
+    }
+}
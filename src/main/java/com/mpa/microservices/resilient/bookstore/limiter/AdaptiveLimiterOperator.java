@@ -0,0 +1,32 @@
+package com.mpa.microservices.resilient.bookstore.limiter;
+
+import java.util.function.UnaryOperator;
+import reactor.core.publisher.Mono;
+
+//Reactor counterpart of the aspect and the Feign decorator; never waits for a slot, rejects right away instead.
+public class AdaptiveLimiterOperator<T> implements UnaryOperator<Mono<T>> {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private AdaptiveLimiterOperator(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    public static <T> AdaptiveLimiterOperator<T> of(AdaptiveConcurrencyLimiter limiter) {
+        return new AdaptiveLimiterOperator<>(limiter);
+    }
+
+    @Override
+    public Mono<T> apply(Mono<T> mono) {
+        return Mono.defer(() -> {
+            if (!limiter.tryAcquire()) {
+                return Mono.error(limiter.limitExceeded());
+            }
+            long start = System.nanoTime();
+            return mono
+                    .doOnSuccess(value -> limiter.onSuccess(System.nanoTime() - start))
+                    .doOnError(limiter::onError)
+                    .doOnCancel(limiter::onIgnored);
+        });
+    }
+}
@@ -0,0 +1,96 @@
+package com.mpa.microservices.resilient.bookstore.limiter;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.adaptive-limiter")
+public class AdaptiveLimiterProperties {
+
+    private Map<String, LimiterConfig> instances = new HashMap<>();
+
+    public Map<String, LimiterConfig> getInstances() {
+        return instances;
+    }
+
+    public void setInstances(Map<String, LimiterConfig> instances) {
+        this.instances = instances;
+    }
+
+    public LimiterConfig getConfig(String name) {
+        return instances.getOrDefault(name, new LimiterConfig());
+    }
+
+    public static class LimiterConfig {
+
+        private int initialLimit = 10;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        //multiplicative decrease applied on errors and on latency above rttTolerance * minimum observed latency
+        private double backoffRatio = 0.9;
+        private double rttTolerance = 2.0;
+        //the minimum latency is re-learned after this many samples, so a changed baseline is picked up
+        private int minRttResetSamples = 1000;
+        //how long blocking callers wait for a free slot, reactive callers never wait
+        private Duration maxWait = Duration.ZERO;
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public double getRttTolerance() {
+            return rttTolerance;
+        }
+
+        public void setRttTolerance(double rttTolerance) {
+            this.rttTolerance = rttTolerance;
+        }
+
+        public int getMinRttResetSamples() {
+            return minRttResetSamples;
+        }
+
+        public void setMinRttResetSamples(int minRttResetSamples) {
+            this.minRttResetSamples = minRttResetSamples;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.mpa.microservices.resilient.bookstore.limiter;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AdaptiveLimiterRegistry {
+
+    private final ConcurrentMap<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private AdaptiveLimiterProperties adaptiveLimiterProperties;
+
+    public AdaptiveLimiterRegistry(AdaptiveLimiterProperties adaptiveLimiterProperties) {
+        this.adaptiveLimiterProperties = adaptiveLimiterProperties;
+    }
+
+    public AdaptiveConcurrencyLimiter limiter(String name) {
+        return limiters.computeIfAbsent(name,
+                key -> new AdaptiveConcurrencyLimiter(key, adaptiveLimiterProperties.getConfig(key)));
+    }
+
+    public Collection<AdaptiveConcurrencyLimiter> getAllLimiters() {
+        return limiters.values();
+    }
+}
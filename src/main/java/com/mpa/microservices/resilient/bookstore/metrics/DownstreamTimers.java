@@ -0,0 +1,20 @@
+package com.mpa.microservices.resilient.bookstore.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+
+//Success and failure timers of one downstream call, resolved once and then recorded into without allocating.
+public class DownstreamTimers {
+
+    private final Timer success;
+    private final Timer failure;
+
+    DownstreamTimers(Timer success, Timer failure) {
+        this.success = success;
+        this.failure = failure;
+    }
+
+    public void record(long nanos, boolean successful) {
+        (successful ? success : failure).record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,238 @@
+package com.mpa.microservices.resilient.bookstore.metrics;
+
+import com.mpa.microservices.resilient.bookstore.admission.AdmissionControlFilter;
+import com.mpa.microservices.resilient.bookstore.admission.AdmissionController;
+import com.mpa.microservices.resilient.bookstore.admission.Priority;
+import com.mpa.microservices.resilient.bookstore.batching.MicroBatcher;
+import com.mpa.microservices.resilient.bookstore.batching.OrdersHistoryBatcher;
+import com.mpa.microservices.resilient.bookstore.cache.OrdersHistoryCache;
+import com.mpa.microservices.resilient.bookstore.coalescing.RequestCoalescer;
+import com.mpa.microservices.resilient.bookstore.conditional.ConditionalGetCache;
+import com.mpa.microservices.resilient.bookstore.engine.RecommendationEngine;
+import com.mpa.microservices.resilient.bookstore.hedging.Hedger;
+import com.mpa.microservices.resilient.bookstore.hedging.HedgerRegistry;
+import com.mpa.microservices.resilient.bookstore.hedging.HedgingProperties;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveConcurrencyLimiter;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveLimiterProperties;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveLimiterRegistry;
+import com.mpa.microservices.resilient.bookstore.retry.Retrier;
+import com.mpa.microservices.resilient.bookstore.retry.RetrierRegistry;
+import com.mpa.microservices.resilient.bookstore.retry.RetryBudget;
+import com.mpa.microservices.resilient.bookstore.retry.RetryingProperties;
+import com.mpa.microservices.resilient.bookstore.scenario.ScenarioRunner;
+import com.mpa.microservices.resilient.bookstore.tenant.StripedLruRegistry;
+import com.mpa.microservices.resilient.bookstore.tenant.TenantGuardsRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker.StateTransition;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+//Binds the counters kept by the cache, the conditional GETs, the coalescer, the batcher, the adaptive limiters and the
+// hedgers, the size of the recommendation index and the per-tenant registry, the running scenarios, the retriers and
+// their budget, the admission control, plus circuit breaker state transitions. Not permitted calls, breaker states and
+// rate limiter permits come from resilience4j-micrometer.
+@Component
+public class RecommendationsMeterBinder implements MeterBinder {
+
+    private OrdersHistoryCache ordersHistoryCache;
+    private RequestCoalescer requestCoalescer;
+    private AdaptiveLimiterRegistry adaptiveLimiterRegistry;
+    private AdaptiveLimiterProperties adaptiveLimiterProperties;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private HedgerRegistry hedgerRegistry;
+    private HedgingProperties hedgingProperties;
+    private OrdersHistoryBatcher ordersHistoryBatcher;
+    private RecommendationEngine recommendationEngine;
+    private TenantGuardsRegistry tenantGuardsRegistry;
+    private ScenarioRunner scenarioRunner;
+    private RetrierRegistry retrierRegistry;
+    private RetryingProperties retryingProperties;
+    private AdmissionControlFilter admissionControlFilter;
+    private ConditionalGetCache conditionalGetCache;
+
+    public RecommendationsMeterBinder(OrdersHistoryCache ordersHistoryCache, RequestCoalescer requestCoalescer,
+            AdaptiveLimiterRegistry adaptiveLimiterRegistry, AdaptiveLimiterProperties adaptiveLimiterProperties,
+            CircuitBreakerRegistry circuitBreakerRegistry, HedgerRegistry hedgerRegistry,
+            HedgingProperties hedgingProperties, OrdersHistoryBatcher ordersHistoryBatcher,
+            RecommendationEngine recommendationEngine, TenantGuardsRegistry tenantGuardsRegistry,
+            ScenarioRunner scenarioRunner, RetrierRegistry retrierRegistry, RetryingProperties retryingProperties,
+            AdmissionControlFilter admissionControlFilter, ConditionalGetCache conditionalGetCache) {
+        this.ordersHistoryCache = ordersHistoryCache;
+        this.requestCoalescer = requestCoalescer;
+        this.adaptiveLimiterRegistry = adaptiveLimiterRegistry;
+        this.adaptiveLimiterProperties = adaptiveLimiterProperties;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.hedgerRegistry = hedgerRegistry;
+        this.hedgingProperties = hedgingProperties;
+        this.ordersHistoryBatcher = ordersHistoryBatcher;
+        this.recommendationEngine = recommendationEngine;
+        this.tenantGuardsRegistry = tenantGuardsRegistry;
+        this.scenarioRunner = scenarioRunner;
+        this.retrierRegistry = retrierRegistry;
+        this.retryingProperties = retryingProperties;
+        this.admissionControlFilter = admissionControlFilter;
+        this.conditionalGetCache = conditionalGetCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCache(registry);
+        bindConditionalGets(registry);
+        FunctionCounter.builder("recommendations.coalescing.calls", requestCoalescer, RequestCoalescer::getExecuted)
+                .tag("result", "executed").register(registry);
+        FunctionCounter.builder("recommendations.coalescing.calls", requestCoalescer, RequestCoalescer::getCollapsed)
+                .tag("result", "collapsed").register(registry);
+        bindBatcher(registry, ordersHistoryBatcher.getBatcher());
+        bindEngine(registry);
+        bindTenants(registry, tenantGuardsRegistry.getRegistry());
+        bindAdmission(registry, admissionControlFilter.getAdmissionController());
+        Gauge.builder("recommendations.scenarios.running", scenarioRunner, ScenarioRunner::getRunning)
+                .register(registry);
+        adaptiveLimiterProperties.getInstances().keySet()
+                .forEach(name -> bindAdaptiveLimiter(registry, adaptiveLimiterRegistry.limiter(name)));
+        hedgingProperties.getInstances().keySet()
+                .forEach(name -> bindHedger(registry, hedgerRegistry.hedger(name)));
+        retryingProperties.getInstances().keySet()
+                .forEach(name -> bindRetrier(registry, retrierRegistry.retrier(name)));
+        Gauge.builder("recommendations.retry.budget.tokens", retrierRegistry.getBudget(), RetryBudget::getTokens)
+                .register(registry);
+        circuitBreakerRegistry.getAllCircuitBreakers()
+                .forEach(circuitBreaker -> bindTransitions(registry, circuitBreaker));
+        circuitBreakerRegistry.getEventPublisher()
+                .onEntryAdded(event -> bindTransitions(registry, event.getAddedEntry()));
+    }
+
+    private void bindCache(MeterRegistry registry) {
+        FunctionCounter.builder("recommendations.cache.requests", ordersHistoryCache, OrdersHistoryCache::getHits)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("recommendations.cache.requests", ordersHistoryCache, OrdersHistoryCache::getMisses)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("recommendations.cache.requests", ordersHistoryCache,
+                OrdersHistoryCache::getStaleServed)
+                .tag("result", "stale").register(registry);
+        FunctionCounter.builder("recommendations.cache.requests", ordersHistoryCache,
+                OrdersHistoryCache::getFallbackServed)
+                .tag("result", "fallback").register(registry);
+        Gauge.builder("recommendations.cache.size", ordersHistoryCache, OrdersHistoryCache::size)
+                .register(registry);
+    }
+
+    //order-history GETs answered with a body (and an ETag) against those answered 304 and served from the copy
+    private void bindConditionalGets(MeterRegistry registry) {
+        FunctionCounter.builder("recommendations.conditional.responses", conditionalGetCache,
+                ConditionalGetCache::getModified)
+                .tag("result", "modified").register(registry);
+        FunctionCounter.builder("recommendations.conditional.responses", conditionalGetCache,
+                ConditionalGetCache::getNotModified)
+                .tag("result", "not_modified").register(registry);
+        Gauge.builder("recommendations.conditional.size", conditionalGetCache, ConditionalGetCache::size)
+                .register(registry);
+        Gauge.builder("recommendations.conditional.bytes", conditionalGetCache, ConditionalGetCache::bytes)
+                .baseUnit(BaseUnits.BYTES).register(registry);
+    }
+
+    private void bindBatcher(MeterRegistry registry, MicroBatcher<?, ?> batcher) {
+        FunctionCounter.builder("recommendations.batching.requests", batcher, MicroBatcher::getRequests)
+                .tag("name", batcher.getName()).register(registry);
+        FunctionCounter.builder("recommendations.batching.keys", batcher, MicroBatcher::getKeys)
+                .tag("name", batcher.getName()).register(registry);
+        FunctionCounter.builder("recommendations.batching.batches", batcher, MicroBatcher::getBatches)
+                .tag("name", batcher.getName()).register(registry);
+    }
+
+    private void bindEngine(MeterRegistry registry) {
+        Gauge.builder("recommendations.engine.items", recommendationEngine, engine -> engine.footprint().getItems())
+                .register(registry);
+        Gauge.builder("recommendations.engine.users", recommendationEngine, engine -> engine.footprint().getUsers())
+                .register(registry);
+        Gauge.builder("recommendations.engine.pairs", recommendationEngine, engine -> engine.footprint().getPairs())
+                .register(registry);
+        Gauge.builder("recommendations.engine.memory", recommendationEngine, engine -> engine.footprint().getBytes())
+                .baseUnit(BaseUnits.BYTES).register(registry);
+    }
+
+    private void bindTenants(MeterRegistry registry, StripedLruRegistry<?> tenants) {
+        Gauge.builder("recommendations.tenants.size", tenants, StripedLruRegistry::size).register(registry);
+        FunctionCounter.builder("recommendations.tenants.removed", tenants, StripedLruRegistry::getEvicted)
+                .tag("cause", "size").register(registry);
+        FunctionCounter.builder("recommendations.tenants.removed", tenants, StripedLruRegistry::getExpired)
+                .tag("cause", "idle").register(registry);
+        FunctionCounter.builder("recommendations.tenants.created", tenants, StripedLruRegistry::getCreated)
+                .register(registry);
+    }
+
+    private void bindAdmission(MeterRegistry registry, AdmissionController admission) {
+        Gauge.builder("recommendations.admission.inflight", admission, AdmissionController::getInFlight)
+                .register(registry);
+        Gauge.builder("recommendations.admission.queued", admission, AdmissionController::getQueued)
+                .register(registry);
+        for (Priority priority : Priority.values()) {
+            Gauge.builder("recommendations.admission.overloaded", admission,
+                    controller -> controller.isOverloaded(priority) ? 1 : 0)
+                    .tag("priority", priority.name()).register(registry);
+        }
+        FunctionCounter.builder("recommendations.admission.requests", admission, AdmissionController::getAdmitted)
+                .tag("result", "admitted").register(registry);
+        FunctionCounter.builder("recommendations.admission.requests", admission, AdmissionController::getTimedOut)
+                .tag("result", "timed_out").register(registry);
+        FunctionCounter.builder("recommendations.admission.requests", admission, AdmissionController::getShed)
+                .tag("result", "shed").register(registry);
+    }
+
+    private void bindAdaptiveLimiter(MeterRegistry registry, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("recommendations.adaptive.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("name", limiter.getName()).register(registry);
+        Gauge.builder("recommendations.adaptive.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("name", limiter.getName()).register(registry);
+    }
+
+    private void bindHedger(MeterRegistry registry, Hedger hedger) {
+        FunctionCounter.builder("recommendations.hedging.calls", hedger, Hedger::getCalls)
+                .tag("name", hedger.getName()).tag("result", "call").register(registry);
+        FunctionCounter.builder("recommendations.hedging.calls", hedger, Hedger::getHedged)
+                .tag("name", hedger.getName()).tag("result", "hedged").register(registry);
+        FunctionCounter.builder("recommendations.hedging.calls", hedger, Hedger::getHedgeWins)
+                .tag("name", hedger.getName()).tag("result", "hedge_won").register(registry);
+        FunctionCounter.builder("recommendations.hedging.calls", hedger, Hedger::getBudgetDenied)
+                .tag("name", hedger.getName()).tag("result", "budget_denied").register(registry);
+        FunctionCounter.builder("recommendations.hedging.calls", hedger, Hedger::getRejected)
+                .tag("name", hedger.getName()).tag("result", "rejected").register(registry);
+        TimeGauge.builder("recommendations.hedging.delay", hedger, TimeUnit.NANOSECONDS, Hedger::getDelayNanos)
+                .tag("name", hedger.getName()).register(registry);
+    }
+
+    private void bindRetrier(MeterRegistry registry, Retrier retrier) {
+        FunctionCounter.builder("recommendations.retry.calls", retrier, Retrier::getCalls)
+                .tag("name", retrier.getName()).tag("result", "call").register(registry);
+        FunctionCounter.builder("recommendations.retry.calls", retrier, Retrier::getRetries)
+                .tag("name", retrier.getName()).tag("result", "retried").register(registry);
+        FunctionCounter.builder("recommendations.retry.calls", retrier, Retrier::getBudgetDenied)
+                .tag("name", retrier.getName()).tag("result", "budget_denied").register(registry);
+        FunctionCounter.builder("recommendations.retry.calls", retrier, Retrier::getExhausted)
+                .tag("name", retrier.getName()).tag("result", "exhausted").register(registry);
+    }
+
+    //one counter per possible transition, registered up front so a transition event only increments it
+    private void bindTransitions(MeterRegistry registry, CircuitBreaker circuitBreaker) {
+        Map<StateTransition, Counter> transitions = new EnumMap<>(StateTransition.class);
+        for (StateTransition transition : StateTransition.values()) {
+            transitions.put(transition, Counter.builder("recommendations.circuitbreaker.transitions")
+                    .tag("name", circuitBreaker.getName())
+                    .tag("from", transition.getFromState().name())
+                    .tag("to", transition.getToState().name())
+                    .register(registry));
+        }
+        circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> transitions.get(event.getStateTransition()).increment());
+    }
+}
@@ -0,0 +1,94 @@
+package com.mpa.microservices.resilient.bookstore.metrics;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+//Meters recorded on the request path. Meters are resolved once and cached, recording only updates them.
+// Percentiles and histograms are configured under management.metrics.distribution in application.yml.
+@Component
+public class RecommendationsMetrics {
+
+    public static final String DOWNSTREAM_TIMER = "recommendations.downstream";
+    public static final String RATE_LIMITER_WAIT_TIMER = "recommendations.ratelimiter.wait";
+    public static final String FALLBACK_COUNTER = "recommendations.fallbacks";
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Timer> rateLimiterWaitTimers = new ConcurrentHashMap<>();
+    private final Counter cacheFallbacks;
+    private final Counter defaultFallbacks;
+
+    public RecommendationsMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.cacheFallbacks = Counter.builder(FALLBACK_COUNTER).tag("source", "cache").register(meterRegistry);
+        this.defaultFallbacks = Counter.builder(FALLBACK_COUNTER).tag("source", "default").register(meterRegistry);
+    }
+
+    public DownstreamTimers downstreamTimers(String client, String uri) {
+        return new DownstreamTimers(downstreamTimer(client, uri, "success"), downstreamTimer(client, uri, "error"));
+    }
+
+    public <T> Supplier<T> decorateRateLimiter(RateLimiter rateLimiter, Supplier<T> supplier) {
+        return () -> {
+            waitForPermission(rateLimiter);
+            return supplier.get();
+        };
+    }
+
+    //RateLimiter.waitForPermission, timed; a denied permit is timed too, it waited the limiter's whole timeout
+    public void waitForPermission(RateLimiter rateLimiter) {
+        Timer waitTimer = rateLimiterWaitTimer(rateLimiter);
+        long start = System.nanoTime();
+        try {
+            RateLimiter.waitForPermission(rateLimiter);
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    //RateLimiterOperator, timed: it delays subscribing upstream until the permit is there, or fails without
+    // subscribing when it is denied, so exactly one of the two hooks records the wait. The upstream must not fail
+    // with RequestNotPermitted itself, that wait would be recorded twice.
+    public <T> UnaryOperator<Mono<T>> rateLimiterOperator(RateLimiter rateLimiter) {
+        Timer waitTimer = rateLimiterWaitTimer(rateLimiter);
+        return mono -> Mono.defer(() -> {
+            long start = System.nanoTime();
+            return mono
+                    .doOnSubscribe(subscription -> waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .transform(RateLimiterOperator.of(rateLimiter))
+                    .doOnError(RequestNotPermitted.class,
+                            error -> waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    public void recordCacheFallback() {
+        cacheFallbacks.increment();
+    }
+
+    public void recordDefaultFallback() {
+        defaultFallbacks.increment();
+    }
+
+    private Timer rateLimiterWaitTimer(RateLimiter rateLimiter) {
+        return rateLimiterWaitTimers.computeIfAbsent(rateLimiter.getName(),
+                name -> Timer.builder(RATE_LIMITER_WAIT_TIMER).tag("name", name).register(meterRegistry));
+    }
+
+    private Timer downstreamTimer(String client, String uri, String outcome) {
+        return Timer.builder(DOWNSTREAM_TIMER)
+                .tag("client", client)
+                .tag("uri", uri)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,41 @@
+package com.mpa.microservices.resilient.bookstore.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+//WebClient counterpart of TimedFeignClient, times every exchange per request path.
+public class TimedExchangeFilterFunction implements ExchangeFilterFunction {
+
+    private final RecommendationsMetrics recommendationsMetrics;
+    private final ConcurrentMap<String, DownstreamTimers> timersByPath = new ConcurrentHashMap<>();
+
+    public TimedExchangeFilterFunction(RecommendationsMetrics recommendationsMetrics) {
+        this.recommendationsMetrics = recommendationsMetrics;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        DownstreamTimers timers = timers(request.url().getRawPath());
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return next.exchange(request)
+                    .doOnSuccess(response -> timers.record(System.nanoTime() - start,
+                            response != null && !response.statusCode().is5xxServerError()))
+                    .doOnError(error -> timers.record(System.nanoTime() - start, false));
+        });
+    }
+
+    private DownstreamTimers timers(String path) {
+        DownstreamTimers timers = timersByPath.get(path);
+        if (timers == null) {
+            timers = timersByPath.computeIfAbsent(path,
+                    key -> recommendationsMetrics.downstreamTimers("webclient", key));
+        }
+        return timers;
+    }
+}
@@ -0,0 +1,49 @@
+package com.mpa.microservices.resilient.bookstore.metrics;
+
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+//Times every HTTP exchange made through Feign, per OrdersHistoryClient method.
+public class TimedFeignClient implements Client {
+
+    private final Client delegate;
+    private final RecommendationsMetrics recommendationsMetrics;
+    private final ConcurrentMap<String, DownstreamTimers> timersByMethod = new ConcurrentHashMap<>();
+
+    public TimedFeignClient(Client delegate, RecommendationsMetrics recommendationsMetrics) {
+        this.delegate = delegate;
+        this.recommendationsMetrics = recommendationsMetrics;
+    }
+
+    @Override
+    public Response execute(Request request, Options options) throws IOException {
+        DownstreamTimers timers = timers(request);
+        long start = System.nanoTime();
+        boolean successful = false;
+        try {
+            Response response = delegate.execute(request, options);
+            successful = response.status() < 500;
+            return response;
+        } finally {
+            timers.record(System.nanoTime() - start, successful);
+        }
+    }
+
+    private DownstreamTimers timers(Request request) {
+        MethodMetadata methodMetadata = request.requestTemplate().methodMetadata();
+        String configKey = methodMetadata != null ? methodMetadata.configKey() : request.url();
+        DownstreamTimers timers = timersByMethod.get(configKey);
+        if (timers == null) {
+            timers = timersByMethod.computeIfAbsent(configKey,
+                    key -> recommendationsMetrics.downstreamTimers("feign", URI.create(request.url()).getRawPath()));
+        }
+        return timers;
+    }
+}
@@ -0,0 +1,29 @@
+package com.mpa.microservices.resilient.bookstore.metrics;
+
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Target;
+import io.github.resilience4j.feign.FeignDecorator;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.vavr.CheckedFunction1;
+import java.lang.reflect.Method;
+
+//FeignDecorators.withRateLimiter, with the permit wait recorded like on every other rate limited path.
+public class TimedRateLimiterFeignDecorator implements FeignDecorator {
+
+    private final RateLimiter rateLimiter;
+    private final RecommendationsMetrics recommendationsMetrics;
+
+    public TimedRateLimiterFeignDecorator(RateLimiter rateLimiter, RecommendationsMetrics recommendationsMetrics) {
+        this.rateLimiter = rateLimiter;
+        this.recommendationsMetrics = recommendationsMetrics;
+    }
+
+    @Override
+    public CheckedFunction1<Object[], Object> decorate(CheckedFunction1<Object[], Object> invocationCall,
+            Method method, MethodHandler methodHandler, Target<?> target) {
+        return args -> {
+            recommendationsMetrics.waitForPermission(rateLimiter);
+            return invocationCall.apply(args);
+        };
+    }
+}
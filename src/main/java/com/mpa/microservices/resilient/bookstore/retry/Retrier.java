@@ -0,0 +1,158 @@
+package com.mpa.microservices.resilient.bookstore.retry;
+
+import com.mpa.microservices.resilient.bookstore.exceptions.CallUnsuccessful;
+import com.mpa.microservices.resilient.bookstore.retry.RetryingProperties.RetryConfig;
+import feign.RetryableException;
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+//Retries transient order-history failures after a decorrelated jitter backoff: each delay is drawn between
+// baseDelay and three times the previous delay, so clients that failed together don't retry together. Every retry
+// needs a token from the shared RetryBudget. Only failures of the call itself are retried, never the rejections of
+// the circuit breaker, rate limiter or bulkheads: the attempt passed in must carry them, so each retry is counted by
+// the breaker and pays for its rate limiter permit, and an open breaker ends the retries.
+public class Retrier {
+
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    private final String name;
+    private final RetryConfig config;
+    private final RetryBudget budget;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder budgetDenied = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public Retrier(String name, RetryConfig config, RetryBudget budget) {
+        this.name = name;
+        this.config = config;
+        this.budget = budget;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public <T> Supplier<T> decorateSupplier(Supplier<T> call) {
+        return () -> execute(call);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        return execute(call, NO_DEADLINE);
+    }
+
+    //no retry is sent that would start after deadlineNanos (System.nanoTime()), e.g. once nobody waits for the result
+    public <T> T execute(Supplier<T> call, long deadlineNanos) {
+        if (!config.isEnabled()) {
+            return call.get();
+        }
+        onCall();
+        long delay = 0;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = call.get();
+                budget.onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                delay = nextDelayNanos(e, attempt, delay, deadlineNanos);
+                if (delay < 0) {
+                    throw e;
+                }
+                sleep(delay, e);
+            }
+        }
+    }
+
+    //-1 when the failure of this attempt is final, otherwise the backoff before the next one
+    public long nextDelayNanos(Throwable failure, int attempt, long previousDelayNanos) {
+        return nextDelayNanos(failure, attempt, previousDelayNanos, NO_DEADLINE);
+    }
+
+    private long nextDelayNanos(Throwable failure, int attempt, long previousDelayNanos, long deadlineNanos) {
+        if (!isRetryable(failure)) {
+            return -1;
+        }
+        if (attempt >= config.getMaxAttempts()) {
+            exhausted.increment();
+            return -1;
+        }
+        long base = config.getBaseDelay().toNanos();
+        long max = config.getMaxDelay().toNanos();
+        long delay = Math.min(max,
+                ThreadLocalRandom.current().nextLong(base, Math.max(base, previousDelayNanos) * 3 + 1));
+        //a Retry-After further out than maxDelay is not worth waiting for
+        if (failure instanceof RetryableException && ((RetryableException) failure).retryAfter() != null) {
+            long retryAfter = TimeUnit.MILLISECONDS.toNanos(
+                    ((RetryableException) failure).retryAfter().getTime() - System.currentTimeMillis());
+            if (retryAfter > max) {
+                exhausted.increment();
+                return -1;
+            }
+            delay = Math.max(delay, retryAfter);
+        }
+        if (deadlineNanos != NO_DEADLINE && System.nanoTime() + delay - deadlineNanos >= 0) {
+            exhausted.increment();
+            return -1;
+        }
+        if (!budget.tryAcquireRetry()) {
+            budgetDenied.increment();
+            return -1;
+        }
+        retries.increment();
+        return delay;
+    }
+
+    public void onSuccess() {
+        budget.onSuccess();
+    }
+
+    public void onCall() {
+        calls.increment();
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getBudgetDenied() {
+        return budgetDenied.sum();
+    }
+
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+
+    //connection failures, 5xx answers and Retry-After responses; timeouts are left to the fallback, retrying them
+    // would add load exactly when order-history-service is slow
+    private static boolean isRetryable(Throwable failure) {
+        return failure instanceof RetryableException
+                || failure instanceof CallUnsuccessful
+                || failure instanceof IOException
+                || failure instanceof WebClientResponseException
+                && ((WebClientResponseException) failure).getStatusCode().is5xxServerError();
+    }
+
+    private static void sleep(long nanos, RuntimeException failure) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.addSuppressed(e);
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.mpa.microservices.resilient.bookstore.retry;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RetrierRegistry {
+
+    private final ConcurrentMap<String, Retrier> retriers = new ConcurrentHashMap<>();
+    private RetryingProperties retryingProperties;
+    private RetryBudget budget;
+
+    public RetrierRegistry(RetryingProperties retryingProperties) {
+        this.retryingProperties = retryingProperties;
+        this.budget = new RetryBudget(retryingProperties.getMaxRetryRatio(), retryingProperties.getMaxBurst());
+    }
+
+    public Retrier retrier(String name) {
+        return retriers.computeIfAbsent(name, key -> new Retrier(key, retryingProperties.getConfig(key), budget));
+    }
+
+    public Collection<Retrier> getAllRetriers() {
+        return retriers.values();
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+}
@@ -0,0 +1,47 @@
+package com.mpa.microservices.resilient.bookstore.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//Token bucket every retry is paid from, shared by all request threads. Each successful call adds maxRetryRatio of a
+// token up to maxBurst tokens, so retries stay below that share of the successful calls. During an outage nothing
+// refills it: once the burst is spent calls fail fast instead of multiplying the load on order-history-service.
+public class RetryBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final long refillPerSuccess;
+    private final long maxTokens;
+    private final AtomicLong tokens;
+
+    public RetryBudget(double maxRetryRatio, int maxBurst) {
+        this.refillPerSuccess = Math.round(maxRetryRatio * TOKEN);
+        this.maxTokens = maxBurst * TOKEN;
+        this.tokens = new AtomicLong(maxTokens);
+    }
+
+    public void onSuccess() {
+        while (true) {
+            long current = tokens.get();
+            long next = Math.min(maxTokens, current + refillPerSuccess);
+            if (current == next || tokens.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    public boolean tryAcquireRetry() {
+        while (true) {
+            long current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    public double getTokens() {
+        return (double) tokens.get() / TOKEN;
+    }
+}
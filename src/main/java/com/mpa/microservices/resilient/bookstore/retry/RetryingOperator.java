@@ -0,0 +1,43 @@
+package com.mpa.microservices.resilient.bookstore.retry;
+
+import java.time.Duration;
+import java.util.function.UnaryOperator;
+import reactor.core.publisher.Mono;
+
+//Reactor counterpart of Retrier.execute: a retry is a new subscription to the same Mono after a timer, so it goes
+// through every operator applied before this one and no thread waits out the backoff.
+public class RetryingOperator<T> implements UnaryOperator<Mono<T>> {
+
+    private final Retrier retrier;
+
+    private RetryingOperator(Retrier retrier) {
+        this.retrier = retrier;
+    }
+
+    public static <T> RetryingOperator<T> of(Retrier retrier) {
+        return new RetryingOperator<>(retrier);
+    }
+
+    @Override
+    public Mono<T> apply(Mono<T> mono) {
+        if (!retrier.isEnabled()) {
+            return mono;
+        }
+        return Mono.defer(() -> {
+            retrier.onCall();
+            return attempt(mono, 1, 0);
+        });
+    }
+
+    private Mono<T> attempt(Mono<T> mono, int attempt, long previousDelayNanos) {
+        return mono
+                .doOnSuccess(value -> retrier.onSuccess())
+                .onErrorResume(failure -> {
+                    long delay = retrier.nextDelayNanos(failure, attempt, previousDelayNanos);
+                    if (delay < 0) {
+                        return Mono.error(failure);
+                    }
+                    return Mono.delay(Duration.ofNanos(delay)).then(attempt(mono, attempt + 1, delay));
+                });
+    }
+}
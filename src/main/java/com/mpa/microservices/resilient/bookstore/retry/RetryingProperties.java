@@ -0,0 +1,87 @@
+package com.mpa.microservices.resilient.bookstore.retry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.retry")
+public class RetryingProperties {
+
+    //retries of all instances are paid from one budget, refilled by maxRetryRatio per successful call
+    private double maxRetryRatio = 0.1;
+    private int maxBurst = 10;
+    private Map<String, RetryConfig> instances = new HashMap<>();
+
+    public double getMaxRetryRatio() {
+        return maxRetryRatio;
+    }
+
+    public void setMaxRetryRatio(double maxRetryRatio) {
+        this.maxRetryRatio = maxRetryRatio;
+    }
+
+    public int getMaxBurst() {
+        return maxBurst;
+    }
+
+    public void setMaxBurst(int maxBurst) {
+        this.maxBurst = maxBurst;
+    }
+
+    public Map<String, RetryConfig> getInstances() {
+        return instances;
+    }
+
+    public void setInstances(Map<String, RetryConfig> instances) {
+        this.instances = instances;
+    }
+
+    public RetryConfig getConfig(String name) {
+        return instances.getOrDefault(name, new RetryConfig());
+    }
+
+    public static class RetryConfig {
+
+        private boolean enabled;
+        //attempts including the first one
+        private int maxAttempts = 3;
+        //each backoff is drawn between baseDelay and three times the previous one, capped at maxDelay
+        private Duration baseDelay = Duration.ofMillis(50);
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getBaseDelay() {
+            return baseDelay;
+        }
+
+        public void setBaseDelay(Duration baseDelay) {
+            this.baseDelay = baseDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+    }
+}
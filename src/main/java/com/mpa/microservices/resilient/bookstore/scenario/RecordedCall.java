@@ -0,0 +1,34 @@
+package com.mpa.microservices.resilient.bookstore.scenario;
+
+//One call of recorded order-history traffic: when it was made, counted from the start of the recording, how long it
+// took and whether it failed. All in milliseconds.
+public class RecordedCall {
+
+    private long at;
+    private long duration;
+    private boolean failed;
+
+    public long getAt() {
+        return at;
+    }
+
+    public void setAt(long at) {
+        this.at = at;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+}
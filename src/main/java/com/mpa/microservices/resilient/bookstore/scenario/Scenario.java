@@ -0,0 +1,142 @@
+package com.mpa.microservices.resilient.bookstore.scenario;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig.SlidingWindowType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+//A circuit breaker config and the calls to put through it. Without recorded calls the breaker guards `calls` live
+// getOrdersForCB calls made `interval` apart. With them, the recording is replayed against the breaker on a virtual
+// clock, so hours of traffic replay in milliseconds. The defaults are the /recommendations/states walkthrough.
+public class Scenario {
+
+    private String name = "countBasedCB";
+    private SlidingWindowType slidingWindowType = SlidingWindowType.COUNT_BASED;
+    private int slidingWindowSize = 4;
+    private int minimumNumberOfCalls = 100;
+    //CLOSED -> OPEN once 2 of the last 4 calls failed
+    private float failureRateThreshold = 50;
+    private float slowCallRateThreshold = 100;
+    private Duration slowCallDurationThreshold = Duration.ofSeconds(60);
+    //OPEN -> HALF_OPEN after 2 seconds, then 50% of the 2 trial calls failing opens it again
+    private Duration waitDurationInOpenState = Duration.ofSeconds(2);
+    private int permittedNumberOfCallsInHalfOpenState = 2;
+    private int calls = 10;
+    private Duration interval = Duration.ofSeconds(1);
+    private List<RecordedCall> recorded = new ArrayList<>();
+
+    CircuitBreakerConfig circuitBreakerConfig() {
+        return CircuitBreakerConfig.custom()
+                .slidingWindow(slidingWindowSize, minimumNumberOfCalls, slidingWindowType)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(slowCallDurationThreshold)
+                .waitDurationInOpenState(waitDurationInOpenState)
+                .permittedNumberOfCallsInHalfOpenState(permittedNumberOfCallsInHalfOpenState)
+                //the transition runs on a wall clock timer, a replay moves to HALF_OPEN on its first call past
+                // waitDurationInOpenState instead
+                .automaticTransitionFromOpenToHalfOpenEnabled(recorded.isEmpty())
+                .build();
+    }
+
+    int size() {
+        return recorded.isEmpty() ? calls : recorded.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public SlidingWindowType getSlidingWindowType() {
+        return slidingWindowType;
+    }
+
+    public void setSlidingWindowType(SlidingWindowType slidingWindowType) {
+        this.slidingWindowType = slidingWindowType;
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public void setSlidingWindowSize(int slidingWindowSize) {
+        this.slidingWindowSize = slidingWindowSize;
+    }
+
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+        this.minimumNumberOfCalls = minimumNumberOfCalls;
+    }
+
+    public float getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(float failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public float getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+
+    public Duration getSlowCallDurationThreshold() {
+        return slowCallDurationThreshold;
+    }
+
+    public void setSlowCallDurationThreshold(Duration slowCallDurationThreshold) {
+        this.slowCallDurationThreshold = slowCallDurationThreshold;
+    }
+
+    public Duration getWaitDurationInOpenState() {
+        return waitDurationInOpenState;
+    }
+
+    public void setWaitDurationInOpenState(Duration waitDurationInOpenState) {
+        this.waitDurationInOpenState = waitDurationInOpenState;
+    }
+
+    public int getPermittedNumberOfCallsInHalfOpenState() {
+        return permittedNumberOfCallsInHalfOpenState;
+    }
+
+    public void setPermittedNumberOfCallsInHalfOpenState(int permittedNumberOfCallsInHalfOpenState) {
+        this.permittedNumberOfCallsInHalfOpenState = permittedNumberOfCallsInHalfOpenState;
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+
+    public void setCalls(int calls) {
+        this.calls = calls;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public List<RecordedCall> getRecorded() {
+        return recorded;
+    }
+
+    public void setRecorded(List<RecordedCall> recorded) {
+        this.recorded = recorded;
+    }
+}
@@ -0,0 +1,78 @@
+package com.mpa.microservices.resilient.bookstore.scenario;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+//The breaker of a scenario right after one of its calls
+public class ScenarioProgress {
+
+    public enum Outcome {
+        SUCCESS, FAILURE, NOT_PERMITTED
+    }
+
+    private final String scenario;
+    private final int call;
+    private final Outcome outcome;
+    private final CircuitBreaker.State state;
+    private final float failureRate;
+    private final float slowCallRate;
+    private final int successfulCalls;
+    private final int failedCalls;
+    private final long notPermittedCalls;
+
+    ScenarioProgress(String scenario, int call, Outcome outcome, CircuitBreaker circuitBreaker) {
+        CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+        this.scenario = scenario;
+        this.call = call;
+        this.outcome = outcome;
+        this.state = circuitBreaker.getState();
+        this.failureRate = metrics.getFailureRate();
+        this.slowCallRate = metrics.getSlowCallRate();
+        this.successfulCalls = metrics.getNumberOfSuccessfulCalls();
+        this.failedCalls = metrics.getNumberOfFailedCalls();
+        this.notPermittedCalls = metrics.getNumberOfNotPermittedCalls();
+    }
+
+    public String getScenario() {
+        return scenario;
+    }
+
+    public int getCall() {
+        return call;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public CircuitBreaker.State getState() {
+        return state;
+    }
+
+    //-1 until the sliding window holds minimumNumberOfCalls calls
+    public float getFailureRate() {
+        return failureRate;
+    }
+
+    public float getSlowCallRate() {
+        return slowCallRate;
+    }
+
+    public int getSuccessfulCalls() {
+        return successfulCalls;
+    }
+
+    public int getFailedCalls() {
+        return failedCalls;
+    }
+
+    public long getNotPermittedCalls() {
+        return notPermittedCalls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s call %d %s | Successful calls: %d | Failed calls: %d | Not permitted calls: %d"
+                        + " | Failure rate %%: %s | State: %s", scenario, call, outcome, successfulCalls, failedCalls,
+                notPermittedCalls, failureRate, state);
+    }
+}
@@ -0,0 +1,49 @@
+package com.mpa.microservices.resilient.bookstore.scenario;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.scenarios")
+public class ScenarioProperties {
+
+    //scenarios running at once across all requests, more are refused with 429 Too Many Requests
+    private int maxRunning = 64;
+    //scenarios of one request running in parallel, the rest start as those finish
+    private int maxParallel = 8;
+    //threads making the live order-history calls of scenarios, replays of recorded traffic don't need any
+    private int callThreads = 8;
+    private int maxCalls = 100000;
+
+    public int getMaxRunning() {
+        return maxRunning;
+    }
+
+    public void setMaxRunning(int maxRunning) {
+        this.maxRunning = maxRunning;
+    }
+
+    public int getMaxParallel() {
+        return maxParallel;
+    }
+
+    public void setMaxParallel(int maxParallel) {
+        this.maxParallel = maxParallel;
+    }
+
+    public int getCallThreads() {
+        return callThreads;
+    }
+
+    public void setCallThreads(int callThreads) {
+        this.callThreads = callThreads;
+    }
+
+    public int getMaxCalls() {
+        return maxCalls;
+    }
+
+    public void setMaxCalls(int maxCalls) {
+        this.maxCalls = maxCalls;
+    }
+}
@@ -0,0 +1,164 @@
+package com.mpa.microservices.resilient.bookstore.scenario;
+
+import com.mpa.microservices.resilient.bookstore.clients.OrdersHistoryClient;
+import com.mpa.microservices.resilient.bookstore.scenario.ScenarioProgress.Outcome;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.internal.CircuitBreakerStateMachine;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+//Runs circuit breaker scenarios without holding a request thread: the pauses between live calls are timers, the
+// calls themselves run on a small pool of their own and replays need no thread beyond the one subscribing. Each
+// scenario gets a fresh breaker that is kept out of the CircuitBreakerRegistry.
+@Component
+public class ScenarioRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ScenarioRunner.class);
+    private static final RuntimeException RECORDED_FAILURE = new RuntimeException("recorded failure", null,
+            false, false) {
+    };
+
+    private OrdersHistoryClient ordersHistoryClient;
+    private ScenarioProperties scenarioProperties;
+    private Scheduler callScheduler;
+    private final AtomicInteger running = new AtomicInteger();
+
+    public ScenarioRunner(OrdersHistoryClient ordersHistoryClient, ScenarioProperties scenarioProperties) {
+        this.ordersHistoryClient = ordersHistoryClient;
+        this.scenarioProperties = scenarioProperties;
+        this.callScheduler = Schedulers.newBoundedElastic(scenarioProperties.getCallThreads(), Integer.MAX_VALUE,
+                "scenario-calls");
+    }
+
+    //progress of all scenarios, interleaved as their calls complete. Refused up front when the scenarios would take
+    // the runner past maxRunning.
+    public Flux<ScenarioProgress> run(List<Scenario> scenarios) {
+        for (Scenario scenario : scenarios) {
+            if (scenario.size() > scenarioProperties.getMaxCalls()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        scenario.getName() + " makes more than " + scenarioProperties.getMaxCalls() + " calls");
+            }
+        }
+        if (running.addAndGet(scenarios.size()) > scenarioProperties.getMaxRunning()) {
+            running.addAndGet(-scenarios.size());
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "More than " + scenarioProperties.getMaxRunning() + " scenarios running");
+        }
+        //each slot is given back once: by its scenario, or when the stream ends before the scenario was started, as
+        // it does when the client goes away
+        AtomicInteger reserved = new AtomicInteger(scenarios.size());
+        return Flux.fromIterable(scenarios)
+                .flatMap(scenario -> run(scenario).doFinally(signal -> {
+                    if (reserved.decrementAndGet() >= 0) {
+                        running.decrementAndGet();
+                    }
+                }), scenarioProperties.getMaxParallel())
+                .doFinally(signal -> running.addAndGet(-Math.max(0, reserved.getAndSet(0))));
+    }
+
+    public int getRunning() {
+        return running.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        callScheduler.dispose();
+    }
+
+    private Flux<ScenarioProgress> run(Scenario scenario) {
+        Flux<ScenarioProgress> progress = scenario.getRecorded().isEmpty() ? live(scenario) : replay(scenario);
+        return progress.doOnNext(step -> log.debug("{}", step));
+    }
+
+    private Flux<ScenarioProgress> live(Scenario scenario) {
+        return Flux.defer(() -> {
+            CircuitBreaker circuitBreaker = CircuitBreaker.of(scenario.getName(), scenario.circuitBreakerConfig());
+            return Flux.range(1, scenario.getCalls())
+                    .concatMap(call -> Mono.delay(scenario.getInterval())
+                            .then(Mono.fromCallable(() -> liveCall(scenario, circuitBreaker, call))
+                                    .subscribeOn(callScheduler)));
+        });
+    }
+
+    private ScenarioProgress liveCall(Scenario scenario, CircuitBreaker circuitBreaker, int call) {
+        Outcome outcome;
+        try {
+            circuitBreaker.executeSupplier(ordersHistoryClient::getOrdersForCB);
+            outcome = Outcome.SUCCESS;
+        } catch (CallNotPermittedException e) {
+            outcome = Outcome.NOT_PERMITTED;
+        } catch (Exception e) {
+            outcome = Outcome.FAILURE;
+        }
+        return new ScenarioProgress(scenario.getName(), call, outcome, circuitBreaker);
+    }
+
+    private Flux<ScenarioProgress> replay(Scenario scenario) {
+        return Flux.defer(() -> {
+            VirtualClock clock = new VirtualClock();
+            CircuitBreaker circuitBreaker = new CircuitBreakerStateMachine(scenario.getName(),
+                    scenario.circuitBreakerConfig(), clock);
+            List<RecordedCall> recorded = scenario.getRecorded();
+            return Flux.range(1, recorded.size())
+                    .map(call -> replayCall(scenario, circuitBreaker, clock, call, recorded.get(call - 1)));
+        });
+    }
+
+    private static ScenarioProgress replayCall(Scenario scenario, CircuitBreaker circuitBreaker, VirtualClock clock,
+            int call, RecordedCall recordedCall) {
+        clock.millis = recordedCall.getAt();
+        Outcome outcome;
+        if (!circuitBreaker.tryAcquirePermission()) {
+            outcome = Outcome.NOT_PERMITTED;
+        } else if (recordedCall.isFailed()) {
+            circuitBreaker.onError(recordedCall.getDuration(), TimeUnit.MILLISECONDS, RECORDED_FAILURE);
+            outcome = Outcome.FAILURE;
+        } else {
+            circuitBreaker.onSuccess(recordedCall.getDuration(), TimeUnit.MILLISECONDS);
+            outcome = Outcome.SUCCESS;
+        }
+        return new ScenarioProgress(scenario.getName(), call, outcome, circuitBreaker);
+    }
+
+    //time of the recording, moved forward call by call. Each replay has its own.
+    private static final class VirtualClock extends Clock {
+
+        private volatile long millis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
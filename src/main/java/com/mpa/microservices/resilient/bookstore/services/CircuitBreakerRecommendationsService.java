@@ -1,173 +1,171 @@
 package com.mpa.microservices.resilient.bookstore.services;
 
+import static com.mpa.microservices.resilient.bookstore.cache.OrdersHistoryCache.ORDERS_CB;
+import static com.mpa.microservices.resilient.bookstore.cache.OrdersHistoryCache.ORDERS_RL;
+
+import com.mpa.microservices.resilient.bookstore.cache.OrdersHistoryCache;
 import com.mpa.microservices.resilient.bookstore.clients.OrdersHistoryClient;
+import com.mpa.microservices.resilient.bookstore.clients.ResilientFeignClientFactory;
+import com.mpa.microservices.resilient.bookstore.coalescing.RequestCoalescer;
+import com.mpa.microservices.resilient.bookstore.exceptions.CallTimedOut;
 import com.mpa.microservices.resilient.bookstore.exceptions.CallUnsuccessful;
+import com.mpa.microservices.resilient.bookstore.exceptions.ConcurrencyLimitExceeded;
+import com.mpa.microservices.resilient.bookstore.hedging.HedgerRegistry;
+import com.mpa.microservices.resilient.bookstore.isolation.OrdersHistoryIsolation;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveConcurrencyLimit;
+import com.mpa.microservices.resilient.bookstore.metrics.RecommendationsMetrics;
+import com.mpa.microservices.resilient.bookstore.retry.RetrierRegistry;
 import feign.RetryableException;
-import feign.jackson.JacksonDecoder;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
-import io.github.resilience4j.circuitbreaker.CircuitBreaker.State;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
-import io.github.resilience4j.feign.FeignDecorators;
-import io.github.resilience4j.feign.Resilience4jFeign;
 import io.github.resilience4j.ratelimiter.RateLimiter;
-import io.github.resilience4j.ratelimiter.RateLimiterConfig;
 import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 import io.vavr.control.Try;
-import java.time.Duration;
-import java.util.Collections;
 import java.util.List;
-import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class CircuitBreakerRecommendationsService {
 
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreakerRecommendationsService.class);
+
     private RecommendationsServiceFallback recommendationsServiceFallback;
     private OrdersHistoryClient ordersHistoryClient;
     private CircuitBreakerRegistry circuitBreakerRegistry;
     private CircuitBreakerConfig circuitBreakerConfig;
     private RateLimiterRegistry rateLimiterRegistry;
+    private OrdersHistoryCache ordersHistoryCache;
+    private RequestCoalescer requestCoalescer;
+    private ResilientFeignClientFactory resilientFeignClientFactory;
+    private RecommendationsMetrics recommendationsMetrics;
+    private OrdersHistoryIsolation ordersHistoryIsolation;
+    private HedgerRegistry hedgerRegistry;
+    private RetrierRegistry retrierRegistry;
+    private String ordersHistoryServiceUrl;
 
     public CircuitBreakerRecommendationsService(RecommendationsServiceFallback recommendationsServiceFallback,
             OrdersHistoryClient ordersHistoryClient, CircuitBreakerRegistry circuitBreakerRegistry,
-            RateLimiterRegistry rateLimiterRegistry) {
+            RateLimiterRegistry rateLimiterRegistry, OrdersHistoryCache ordersHistoryCache,
+            RequestCoalescer requestCoalescer, ResilientFeignClientFactory resilientFeignClientFactory,
+            RecommendationsMetrics recommendationsMetrics, OrdersHistoryIsolation ordersHistoryIsolation,
+            HedgerRegistry hedgerRegistry, RetrierRegistry retrierRegistry,
+            @Value("${order-history-service.url}") String ordersHistoryServiceUrl) {
         this.recommendationsServiceFallback = recommendationsServiceFallback;
         this.ordersHistoryClient = ordersHistoryClient;
         this.rateLimiterRegistry = rateLimiterRegistry;
         this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.ordersHistoryCache = ordersHistoryCache;
+        this.requestCoalescer = requestCoalescer;
+        this.resilientFeignClientFactory = resilientFeignClientFactory;
+        this.recommendationsMetrics = recommendationsMetrics;
+        this.ordersHistoryIsolation = ordersHistoryIsolation;
+        this.hedgerRegistry = hedgerRegistry;
+        this.retrierRegistry = retrierRegistry;
+        this.ordersHistoryServiceUrl = ordersHistoryServiceUrl;
     }
 
     public List<String> getRecommendationsNoCB() {
         return ordersHistoryClient.getOrdersForCB().subList(0, 2);
     }
 
+    //Retry ( Hedging ( CircuitBreaker ( Bulkhead ( TimeLimiter ( Function ) ) ) ) )
     public List<String> getRecommendationsWithFallback() {
-        CircuitBreaker defaultCB = CircuitBreaker.ofDefaults("default");
-        List<String> orders = defaultCB
-                .executeTrySupplier(() -> Try.of(() -> ordersHistoryClient.getOrdersForCB()))
+        CircuitBreaker defaultCB = circuitBreakerRegistry.circuitBreaker("default");
+        List<String> orders = Try.ofSupplier(() -> ordersHistoryCache.get(ORDERS_CB,
+                () -> requestCoalescer.execute("getRecommendationsWithFallback", ORDERS_CB,
+                        retrierRegistry.retrier("getOrdersForCB").decorateSupplier(
+                                () -> hedgerRegistry.hedger("getOrdersForCB").execute(
+                                        () -> defaultCB.executeSupplier(ordersHistoryIsolation.decorateSupplier(
+                                                "getOrdersForCB", ordersHistoryClient::getOrdersForCB)))))))
                 .recover(RetryableException.class,
-                        exception -> recommendationsServiceFallback.getDefaultRecommendations())
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(ORDERS_CB))
                 .recover(CallNotPermittedException.class,
-                        exception -> recommendationsServiceFallback.getDefaultRecommendations())
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(ORDERS_CB))
+                .recover(BulkheadFullException.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(ORDERS_CB))
+                .recover(CallTimedOut.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(ORDERS_CB))
                 .get();
-        printCircuitBreakerConfigs(defaultCB);
         return orders.subList(0, 2);
     }
 
-    public List<String> getRecommendations() {
-        List<String> orderHistory = Collections.emptyList();
-        CircuitBreakerConfig countBasedCBConfig = CircuitBreakerConfig.custom()
-                .slidingWindowSize(4)
-                .failureRateThreshold(50)
-                .waitDurationInOpenState(Duration.ofSeconds(2))
-                .automaticTransitionFromOpenToHalfOpenEnabled(true)
-                .permittedNumberOfCallsInHalfOpenState(2)
-//                .ignoreExceptions(CallUnsuccessful.class, ExceptionInInitializerError.class)
-                .build();
-        //STATE: CLOSED -> 2 exceptions must be triggered in order to switch from CLOSED -> OPEN
-        // (failureRateThreshold = 50%)
-        //STATE: OPEN -> after 2 seconds the state is automatically changed from OPEN -> HALF_OPEN
-        // (automaticTransitionFromOpenToHalfOpenEnabled = true)
-        //STATE: HALF_OPEN; at least 1 calls needed to change from HALF_OPEN -> OPEN (if fails) or HALF_OPEN -> CLOSED
-        // (if succeeds).
-        // [IMPORTANT: 50% out of 2 calls should fail in order to change from HALF_OPEN -> OPEN]
-        CircuitBreaker countBasedCB = CircuitBreaker.of("countBasedCB", countBasedCBConfig);
-//        countBasedCB.transitionToDisabledState();
-//        countBasedCB.transitionToForcedOpenState();
-        printCircuitBreakerConfigs(countBasedCB);
-        for (int i = 1; i <= 10; i++) {
-            System.out.println("call  = " + i);
-            if (i == 4 && countBasedCB.getState().equals(State.FORCED_OPEN)) {
-                countBasedCB.reset();
-            }
-            try {
-                Thread.sleep(1000);
-                orderHistory = countBasedCB.executeSupplier(() -> ordersHistoryClient.getOrdersForCB());
-                System.out.println(orderHistory);
-            } catch (Exception e) {
-                System.out.println("----> " + e.getClass().getName());
-            } finally {
-                printMetrics(countBasedCB);
-            }
-        }
-        return orderHistory.subList(0, 2);
-    }
-
-
     //Retry ( CircuitBreaker ( RateLimiter ( TimeLimiter ( Bulkhead ( Function ) ) ) ) )
     @io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker(name = "annotationCB"
             , fallbackMethod = "getDefaultRecommendations")
 //    @RateLimiter(name = "propsRL")
+    //own limiter: /exception always fails, on a shared one it would back the real order-history calls off to minLimit
+    @AdaptiveConcurrencyLimit(name = "getOrdersException")
     public List<String> getRecommendationsAnnotationCB() {
-        CircuitBreaker annotationCB = circuitBreakerRegistry.circuitBreaker("annotationCB");
-        printCircuitBreakerConfigs(annotationCB);
-        return ordersHistoryClient.getOrdersException().subList(0, 2);
+        return ordersHistoryIsolation.execute("getOrdersException", ordersHistoryClient::getOrdersException)
+                .subList(0, 2);
     }
 
     public List<String> getDefaultRecommendations(RetryableException e) {
-        return List.of("Fallback Java Book 1", "Fallback Java Book 2");
+        return recommendationsServiceFallback.getDefaultRecommendations();
     }
 
     public List<String> getDefaultRecommendations(CallUnsuccessful e) {
+        recommendationsMetrics.recordDefaultFallback();
         return List.of("Fallback Java Book 3", "Fallback Java Book 4");
     }
 
+    public List<String> getDefaultRecommendations(CallNotPermittedException e) {
+        return recommendationsServiceFallback.getDefaultRecommendations();
+    }
+
+    public List<String> getDefaultRecommendations(ConcurrencyLimitExceeded e) {
+        return recommendationsServiceFallback.getDefaultRecommendations();
+    }
+
+    public List<String> getDefaultRecommendations(BulkheadFullException e) {
+        return recommendationsServiceFallback.getDefaultRecommendations();
+    }
+
+    public List<String> getDefaultRecommendations(CallTimedOut e) {
+        return recommendationsServiceFallback.getDefaultRecommendations();
+    }
+
     public void replaceCB() {
-        System.out.println("BEFORE: circuit breakers:" + circuitBreakerRegistry.getAllCircuitBreakers());
+        log.debug("BEFORE: circuit breakers: {}", circuitBreakerRegistry.getAllCircuitBreakers());
 
         CircuitBreaker newCircuitBreaker = CircuitBreaker.ofDefaults("newCB");
         circuitBreakerRegistry.replace("oldCB", newCircuitBreaker);
 
-        System.out.println("AFTER: circuit breakers:" + circuitBreakerRegistry.getAllCircuitBreakers());
+        log.debug("AFTER: circuit breakers: {}", circuitBreakerRegistry.getAllCircuitBreakers());
     }
 
+    //Retry ( Hedging ( CircuitBreaker ( RateLimiter ( AdaptiveLimit ( Bulkhead ( TimeLimiter ( Function ) ) ) ) ) ) )
+    // propsCB and propsRL sit inside the retries, so every attempt is counted by the breaker and pays for a permit,
+    // the client isolates the call itself, see ResilientFeignClientFactory
     public List<String> getRecommendationsFeignBuilder() {
         CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("propsCB");
         RateLimiter rateLimiter = rateLimiterRegistry.rateLimiter("propsRL");
-        FeignDecorators decorators = FeignDecorators.builder()
-                .withRateLimiter(rateLimiter)
-                .withCircuitBreaker(circuitBreaker)
-                .build();
-        OrdersHistoryClient ordersHistoryClient = Resilience4jFeign.builder(decorators)
-                .contract(new SpringMvcContract())
-                .decoder(new JacksonDecoder())
-                .target(OrdersHistoryClient.class, "http://localhost:9091/");
-        printCircuitBreakerConfigs(circuitBreaker);
-        printRateLimiterConfigs(rateLimiter);
-        return ordersHistoryClient.getOrdersForRL();
-    }
-
-    private void printMetrics(CircuitBreaker circuitBreaker) {
-        System.out.println(new StringBuilder().append("Successful calls: ")
-                .append(circuitBreaker.getMetrics().getNumberOfSuccessfulCalls()).append(" | Failed calls: ")
-                .append(circuitBreaker.getMetrics().getNumberOfFailedCalls()).append(" | Not permitted calls: ")
-                .append(circuitBreaker.getMetrics().getNumberOfNotPermittedCalls()).append(" | Failure rate %:")
-                .append(circuitBreaker.getMetrics().getFailureRate()).append(" | State: ")
-                .append(circuitBreaker.getState()).append("\n").toString());
-    }
-
-    private void printCircuitBreakerConfigs(CircuitBreaker circuitBreaker) {
-        CircuitBreakerConfig circuitBreakerConfig = circuitBreaker.getCircuitBreakerConfig();
-        String cbConfigs = new StringBuilder().append(circuitBreaker.getName()).append(": \n")
-                .append("- SLIDING_WINDOW_TYPE: " + circuitBreakerConfig.getSlidingWindowType() + "\n")
-                .append("- SLIDING_WINDOW_SIZE: " + circuitBreakerConfig.getSlidingWindowSize() + "\n")
-                .append("- FAILURE_RATE_THRESHOLD: " + circuitBreakerConfig.getFailureRateThreshold() + "\n")
-                .append("- PERMITTED_CALLS_IN_HALF_OPEN_STATE: " + circuitBreakerConfig
-                        .getPermittedNumberOfCallsInHalfOpenState())
-                .toString();
-        System.out.println(cbConfigs);
-    }
-
-    private void printRateLimiterConfigs(RateLimiter rateLimiter) {
-        RateLimiterConfig rateLimiterConfig = rateLimiter.getRateLimiterConfig();
-        String cbConfigs = new StringBuilder().append(rateLimiter.getName()).append(": \n")
-                .append("- LIMIT_FOR_PERIOD: " + rateLimiterConfig.getLimitForPeriod() + "\n")
-                .append("- LIMIT_REFRESH_PERIOD: " + rateLimiterConfig.getLimitRefreshPeriod() + "\n")
-                .append("- TIMOUT_DURATION: " + rateLimiterConfig.getTimeoutDuration() + "\n")
-                .toString();
-        System.out.println(cbConfigs);
+        OrdersHistoryClient ordersHistoryClient = resilientFeignClientFactory
+                .ordersHistoryClient(circuitBreaker, rateLimiter, ordersHistoryServiceUrl);
+        return Try.ofSupplier(() -> ordersHistoryCache.get(ORDERS_RL,
+                () -> requestCoalescer.execute("getRecommendationsFeignBuilder", ORDERS_RL,
+                        retrierRegistry.retrier("getOrdersForRL").decorateSupplier(
+                                hedgerRegistry.hedger("getOrdersForRL").decorateSupplier(
+                                        ordersHistoryClient::getOrdersForRL)))))
+                .recover(RetryableException.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(ORDERS_RL))
+                .recover(CallNotPermittedException.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(ORDERS_RL))
+                .recover(RequestNotPermitted.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(ORDERS_RL))
+                .recover(ConcurrencyLimitExceeded.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(ORDERS_RL))
+                .recover(BulkheadFullException.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(ORDERS_RL))
+                .recover(CallTimedOut.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(ORDERS_RL))
+                .get();
     }
-
 }
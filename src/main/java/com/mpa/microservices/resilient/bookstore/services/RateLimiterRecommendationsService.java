@@ -1,12 +1,29 @@
 package com.mpa.microservices.resilient.bookstore.services;
 
-import com.mpa.microservices.resilient.bookstore.clients.OrdersHistoryClient;
+import static com.mpa.microservices.resilient.bookstore.cache.OrdersHistoryCache.ORDERS_RL;
+
+import com.mpa.microservices.resilient.bookstore.batching.OrdersHistoryBatcher;
+import com.mpa.microservices.resilient.bookstore.cache.OrdersHistoryCache;
+import com.mpa.microservices.resilient.bookstore.coalescing.RequestCoalescer;
+import com.mpa.microservices.resilient.bookstore.engine.RecommendationEngine;
+import com.mpa.microservices.resilient.bookstore.exceptions.CallTimedOut;
+import com.mpa.microservices.resilient.bookstore.exceptions.ConcurrencyLimitExceeded;
+import com.mpa.microservices.resilient.bookstore.hedging.HedgerRegistry;
+import com.mpa.microservices.resilient.bookstore.hedging.HedgingOperator;
+import com.mpa.microservices.resilient.bookstore.metrics.RecommendationsMetrics;
+import com.mpa.microservices.resilient.bookstore.retry.RetrierRegistry;
+import com.mpa.microservices.resilient.bookstore.retry.RetryingOperator;
+import com.mpa.microservices.resilient.bookstore.tenant.TenantGuards;
+import com.mpa.microservices.resilient.bookstore.tenant.TenantGuardsRegistry;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.ratelimiter.RateLimiter;
-import io.github.resilience4j.ratelimiter.RateLimiterConfig;
 import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
-import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.vavr.control.Try;
 import java.time.Duration;
 import java.util.List;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
@@ -14,55 +31,97 @@ import reactor.core.publisher.Mono;
 @Service
 public class RateLimiterRecommendationsService {
 
+    private static final ParameterizedTypeReference<List<String>> ORDERS_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
     private int counter = 0;
 
     private RecommendationsServiceFallback recommendationsServiceFallback;
-    private OrdersHistoryClient ordersHistoryClient;
     private RateLimiterRegistry rateLimiterRegistry;
+    private OrdersHistoryCache ordersHistoryCache;
+    private RequestCoalescer requestCoalescer;
+    private WebClient ordersHistoryWebClient;
+    private HedgerRegistry hedgerRegistry;
+    private OrdersHistoryBatcher ordersHistoryBatcher;
+    private RecommendationEngine recommendationEngine;
+    private TenantGuardsRegistry tenantGuardsRegistry;
+    private RetrierRegistry retrierRegistry;
+    private RecommendationsMetrics recommendationsMetrics;
 
     public RateLimiterRecommendationsService(RecommendationsServiceFallback recommendationsServiceFallback,
-            OrdersHistoryClient ordersHistoryClient, RateLimiterRegistry rateLimiterRegistry) {
+            RateLimiterRegistry rateLimiterRegistry, OrdersHistoryCache ordersHistoryCache,
+            RequestCoalescer requestCoalescer, WebClient ordersHistoryWebClient, HedgerRegistry hedgerRegistry,
+            OrdersHistoryBatcher ordersHistoryBatcher, RecommendationEngine recommendationEngine,
+            TenantGuardsRegistry tenantGuardsRegistry, RetrierRegistry retrierRegistry,
+            RecommendationsMetrics recommendationsMetrics) {
         this.recommendationsServiceFallback = recommendationsServiceFallback;
-        this.ordersHistoryClient = ordersHistoryClient;
         this.rateLimiterRegistry = rateLimiterRegistry;
+        this.ordersHistoryCache = ordersHistoryCache;
+        this.requestCoalescer = requestCoalescer;
+        this.ordersHistoryWebClient = ordersHistoryWebClient;
+        this.hedgerRegistry = hedgerRegistry;
+        this.ordersHistoryBatcher = ordersHistoryBatcher;
+        this.recommendationEngine = recommendationEngine;
+        this.tenantGuardsRegistry = tenantGuardsRegistry;
+        this.retrierRegistry = retrierRegistry;
+        this.recommendationsMetrics = recommendationsMetrics;
     }
 
     public List<String> getRecommendationsWebClient() {
         RateLimiter rateLimiter = rateLimiterRegistry.rateLimiter("propsRL");
-        WebClient webClient = WebClient.builder()
-                .baseUrl("http://localhost:9091")
-                .build();
-        Mono<List> listMono = webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/ordersHistoryRL")
-                        .build())
-                .retrieve()
-                .bodyToMono(List.class)
-                .transform(RateLimiterOperator.of(rateLimiter))
-                .onErrorResume(error -> Mono.just(recommendationsServiceFallback.getDefaultRecommendations()));
+        Mono<List<String>> listMono = requestCoalescer.executeMono("getRecommendationsWebClient", ORDERS_RL,
+                () -> ordersHistoryWebClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("/ordersHistoryRL")
+                                .build())
+                        .retrieve()
+                        .bodyToMono(ORDERS_TYPE)
+                        .transform(recommendationsMetrics.rateLimiterOperator(rateLimiter))
+                        .transform(HedgingOperator.of(hedgerRegistry.hedger("getOrdersForRL")))
+                        .transform(RetryingOperator.of(retrierRegistry.retrier("getOrdersForRL"))))
+                .doOnNext(orders -> ordersHistoryCache.put(ORDERS_RL, orders))
+                .onErrorResume(error -> Mono.fromSupplier(
+                        () -> recommendationsServiceFallback.getCachedRecommendations(ORDERS_RL)));
 
-        printRateLimiterConfigs(rateLimiter);
         return listMono.block(Duration.ofSeconds(1));
     }
 
-    @io.github.resilience4j.ratelimiter.annotation.RateLimiter(name = "propsRL")
-    public List<String> getOrderHistoryRL(String id) {
-        if ("1".equals(id)) {
-            RateLimiter rateLimiter = rateLimiterRegistry.rateLimiter("propsRL");
-            rateLimiter.changeLimitForPeriod(3);
-        }
+    //Books bought together with the user's own, from the co-occurrence index. Until the index knows any, the first
+    // two books of the user's order history as before.
+    public List<String> getRecommendationsRL(String id) {
+        List<String> orders = getOrderHistoryRL(id);
+        List<String> recommendations = recommendationEngine.recommend(id);
+        return recommendations.isEmpty() ? orders.subList(0, Math.min(2, orders.size())) : recommendations;
+    }
 
-        return ordersHistoryClient.getOrdersForRL();
+    //Order history of one user. Users missing the cache are loaded in micro-batches, one getOrdersForUsers call and
+    // one propsRL permit per batch, so a permit serves every user that arrived while the previous batch was waiting.
+    // The user's own rate limiter comes first, a noisy user is served from the cache before reaching shared
+    // capacity, and the user's own circuit breaker stops reloading a history that keeps failing.
+    public List<String> getOrderHistoryRL(String id) {
+        String cacheKey = ORDERS_RL + ":" + id;
+        TenantGuards tenant = tenantGuardsRegistry.guards(id);
+        return Try.ofSupplier(RateLimiter.decorateSupplier(tenant.getRateLimiter(), () -> ordersHistoryCache.get(
+                cacheKey, () -> requestCoalescer.execute("getOrderHistoryRL", cacheKey,
+                        tenant.getCircuitBreaker().decorateSupplier(() -> loadOrderHistory(id))))))
+                .recover(RequestNotPermitted.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(cacheKey))
+                .recover(CallNotPermittedException.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(cacheKey))
+                .recover(ConcurrencyLimitExceeded.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(cacheKey))
+                .recover(BulkheadFullException.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(cacheKey))
+                .recover(CallTimedOut.class,
+                        exception -> recommendationsServiceFallback.getCachedRecommendations(cacheKey))
+                .get();
     }
 
-    private void printRateLimiterConfigs(RateLimiter rateLimiter) {
-        RateLimiterConfig rateLimiterConfig = rateLimiter.getRateLimiterConfig();
-        String cbConfigs = new StringBuilder().append(rateLimiter.getName()).append(": \n")
-                .append("- LIMIT_FOR_PERIOD: " + rateLimiterConfig.getLimitForPeriod() + "\n")
-                .append("- LIMIT_REFRESH_PERIOD: " + rateLimiterConfig.getLimitRefreshPeriod() + "\n")
-                .append("- TIMOUT_DURATION: " + rateLimiterConfig.getTimeoutDuration() + "\n")
-                .toString();
-        System.out.println(cbConfigs);
+    //only histories really loaded reach the index, never cached or fallback ones
+    private List<String> loadOrderHistory(String id) {
+        List<String> orders = ordersHistoryBatcher.getOrders(id);
+        recommendationEngine.onOrderHistory(id, orders);
+        return orders;
     }
 }
-
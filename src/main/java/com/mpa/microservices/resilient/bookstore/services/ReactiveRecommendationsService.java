@@ -0,0 +1,127 @@
+package com.mpa.microservices.resilient.bookstore.services;
+
+import static com.mpa.microservices.resilient.bookstore.cache.OrdersHistoryCache.ORDERS_CB;
+import static com.mpa.microservices.resilient.bookstore.cache.OrdersHistoryCache.ORDERS_RL;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mpa.microservices.resilient.bookstore.batching.OrdersHistoryBatcher;
+import com.mpa.microservices.resilient.bookstore.cache.OrdersHistoryCache;
+import com.mpa.microservices.resilient.bookstore.coalescing.RequestCoalescer;
+import com.mpa.microservices.resilient.bookstore.engine.RecommendationEngine;
+import com.mpa.microservices.resilient.bookstore.hedging.Hedger;
+import com.mpa.microservices.resilient.bookstore.hedging.HedgerRegistry;
+import com.mpa.microservices.resilient.bookstore.hedging.HedgingOperator;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveConcurrencyLimiter;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveLimiterOperator;
+import com.mpa.microservices.resilient.bookstore.limiter.AdaptiveLimiterRegistry;
+import com.mpa.microservices.resilient.bookstore.retry.Retrier;
+import com.mpa.microservices.resilient.bookstore.retry.RetrierRegistry;
+import com.mpa.microservices.resilient.bookstore.retry.RetryingOperator;
+import com.mpa.microservices.resilient.bookstore.tenant.TenantGuards;
+import com.mpa.microservices.resilient.bookstore.tenant.TenantGuardsRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+//Non-blocking counterpart of the circuit breaker and rate limiter services: nothing on the request path blocks,
+// waiting for a rate limiter permit or for order-history-service happens on the reactor-netty event loop, and a
+// per-user history waiting for its micro-batch holds no thread.
+@Service
+public class ReactiveRecommendationsService {
+
+    private RecommendationsServiceFallback recommendationsServiceFallback;
+    private WebClient ordersHistoryWebClient;
+    private OrdersHistoryCache ordersHistoryCache;
+    private RequestCoalescer requestCoalescer;
+    private CircuitBreaker circuitBreaker;
+    private TimeLimiter timeLimiter;
+    private AdaptiveConcurrencyLimiter ordersForCBLimiter;
+    private Hedger ordersForCBHedger;
+    private Retrier ordersForCBRetrier;
+    private OrdersHistoryBatcher ordersHistoryBatcher;
+    private RecommendationEngine recommendationEngine;
+    private TenantGuardsRegistry tenantGuardsRegistry;
+
+    public ReactiveRecommendationsService(RecommendationsServiceFallback recommendationsServiceFallback,
+            WebClient ordersHistoryWebClient, OrdersHistoryCache ordersHistoryCache,
+            RequestCoalescer requestCoalescer, CircuitBreakerRegistry circuitBreakerRegistry,
+            TimeLimiterRegistry timeLimiterRegistry, AdaptiveLimiterRegistry adaptiveLimiterRegistry,
+            HedgerRegistry hedgerRegistry, RetrierRegistry retrierRegistry,
+            OrdersHistoryBatcher ordersHistoryBatcher, RecommendationEngine recommendationEngine,
+            TenantGuardsRegistry tenantGuardsRegistry) {
+        this.recommendationsServiceFallback = recommendationsServiceFallback;
+        this.ordersHistoryWebClient = ordersHistoryWebClient;
+        this.ordersHistoryCache = ordersHistoryCache;
+        this.requestCoalescer = requestCoalescer;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("propsCB");
+        this.timeLimiter = timeLimiterRegistry.timeLimiter("propsTL");
+        this.ordersForCBLimiter = adaptiveLimiterRegistry.limiter("getOrdersForCB");
+        this.ordersForCBHedger = hedgerRegistry.hedger("getOrdersForCB");
+        this.ordersForCBRetrier = retrierRegistry.retrier("getOrdersForCB");
+        this.ordersHistoryBatcher = ordersHistoryBatcher;
+        this.recommendationEngine = recommendationEngine;
+        this.tenantGuardsRegistry = tenantGuardsRegistry;
+    }
+
+    //Retry ( Hedging ( CircuitBreaker ( RateLimiter ( AdaptiveConcurrencyLimit ( TimeLimiter ( Function ) ) ) ) ) )
+    // the adaptive limit sits outside the TimeLimiter so timeouts count as drops and shrink the limit,
+    // hedging sits outside the breaker and rate limiter so a hedge needs their permission like any other call,
+    // and so does every retry
+    public Mono<List<String>> getRecommendations() {
+        return ordersHistoryCache.getMono(ORDERS_CB, () -> requestCoalescer.executeMono("reactiveRecommendations",
+                ORDERS_CB, () -> getFirstOrders("/ordersHistoryCB", 2)
+                        .transform(TimeLimiterOperator.of(timeLimiter))
+                        .transform(AdaptiveLimiterOperator.of(ordersForCBLimiter))
+                        .transform(CircuitBreakerOperator.of(circuitBreaker))
+                        .transform(HedgingOperator.of(ordersForCBHedger))
+                        .transform(RetryingOperator.of(ordersForCBRetrier))))
+                .onErrorResume(error -> Mono.fromSupplier(
+                        () -> recommendationsServiceFallback.getCachedRecommendations(ORDERS_CB)))
+                .map(orders -> orders.subList(0, 2));
+    }
+
+    //Non-blocking twin of RateLimiterRecommendationsService.getRecommendationsRL: books bought together with the
+    // user's own, the first two books of the user's order history until the index knows any.
+    public Mono<List<String>> getRecommendationsRL(String id) {
+        return getOrderHistoryRL(id).map(orders -> {
+            List<String> recommendations = recommendationEngine.recommend(id);
+            return recommendations.isEmpty() ? orders.subList(0, Math.min(2, orders.size())) : recommendations;
+        });
+    }
+
+    //TenantRateLimiter ( Cache ( Coalescing ( TenantCircuitBreaker ( Batch ) ) ) ), like the blocking path: the user's
+    // history joins the next getOrdersForUsers batch, which pays the propsRL permit, and the request waits for the
+    // batch without holding a thread
+    public Mono<List<String>> getOrderHistoryRL(String id) {
+        String cacheKey = ORDERS_RL + ":" + id;
+        TenantGuards tenant = tenantGuardsRegistry.guards(id);
+        return ordersHistoryCache.getMono(cacheKey, () -> requestCoalescer.executeMono("reactiveOrderHistoryRL",
+                cacheKey, () -> ordersHistoryBatcher.getOrdersMono(id)
+                        //only histories really loaded reach the index, never cached or fallback ones
+                        .doOnNext(orders -> recommendationEngine.onOrderHistory(id, orders))
+                        .transform(CircuitBreakerOperator.of(tenant.getCircuitBreaker()))))
+                .transform(RateLimiterOperator.of(tenant.getRateLimiter()))
+                .onErrorResume(error -> Mono.fromSupplier(
+                        () -> recommendationsServiceFallback.getCachedRecommendations(cacheKey)));
+    }
+
+    //Jackson decodes a Flux from a JSON array element by element, so take() stops tokenizing once n books are in and
+    // its cancel ends the exchange. String elements would go to the plain text StringDecoder, hence JsonNode.
+    private Mono<List<String>> getFirstOrders(String path, int n) {
+        return ordersHistoryWebClient.get()
+                .uri(path)
+                .retrieve()
+                .bodyToFlux(JsonNode.class)
+                .take(n)
+                .map(JsonNode::asText)
+                .collectList();
+    }
+}
@@ -1,14 +1,36 @@
 package com.mpa.microservices.resilient.bookstore.services;
 
+import com.mpa.microservices.resilient.bookstore.cache.OrdersHistoryCache;
 import com.mpa.microservices.resilient.bookstore.exceptions.CallUnsuccessful;
+import com.mpa.microservices.resilient.bookstore.metrics.RecommendationsMetrics;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.stereotype.Service;
 
 @Service
 public class RecommendationsServiceFallback {
 
+    private OrdersHistoryCache ordersHistoryCache;
+    private RecommendationsMetrics recommendationsMetrics;
+
+    public RecommendationsServiceFallback(OrdersHistoryCache ordersHistoryCache,
+            RecommendationsMetrics recommendationsMetrics) {
+        this.ordersHistoryCache = ordersHistoryCache;
+        this.recommendationsMetrics = recommendationsMetrics;
+    }
+
     public List<String> getDefaultRecommendations() throws CallUnsuccessful {
+        recommendationsMetrics.recordDefaultFallback();
         return List.of("Fallback Java Book 1", "Fallback Java Book 2");
     }
-}
 
+    //last known order history (possibly stale) before falling back to the hard-coded books
+    public List<String> getCachedRecommendations(String cacheKey) {
+        Optional<List<String>> cached = ordersHistoryCache.getIfPresent(cacheKey);
+        if (cached.isPresent()) {
+            recommendationsMetrics.recordCacheFallback();
+            return cached.get();
+        }
+        return getDefaultRecommendations();
+    }
+}
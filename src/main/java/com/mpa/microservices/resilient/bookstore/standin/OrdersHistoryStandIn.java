@@ -0,0 +1,256 @@
+package com.mpa.microservices.resilient.bookstore.standin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mpa.microservices.resilient.bookstore.clients.PayloadEncoding;
+import com.mpa.microservices.resilient.bookstore.standin.OrdersHistoryStandInProperties.FaultConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+//order-history-service stand-in with fault injection, started with the application under the standin profile
+// or embedded directly (port 0) by load tests, so nothing needs the real dependency or the network. Like a server that
+// offers them, it answers in Smile and gzips the body when the request accepts it, and revalidates with ETags.
+@Component
+@Profile("standin")
+public class OrdersHistoryStandIn implements AutoCloseable {
+
+    private static final int SLOW_BODY_CHUNK = 8;
+    private static final int SERIES = 100;
+    private static final int SERIES_LENGTH = 10;
+    private static final int USER_ORDERS = 4;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(new SmileFactory());
+
+    static {
+        //headers and body are written separately, without TCP_NODELAY every response waits for a delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private OrdersHistoryStandInProperties properties;
+    private HttpServer server;
+    private ExecutorService executor;
+    private List<String> orders;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder slowBodies = new LongAdder();
+    private final LongAdder hangs = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder bodyBytes = new LongAdder();
+
+    public OrdersHistoryStandIn(OrdersHistoryStandInProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        orders = new ArrayList<>(properties.getHistoryLength());
+        for (int book = 1; book <= properties.getHistoryLength(); book++) {
+            orders.add("Java Book " + book);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        //unbounded, injected latency and hangs park a thread each and must not queue the other requests
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "orders-history-standin-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("localhost", properties.getPort()), 1024);
+        server.setExecutor(executor);
+        for (String endpoint : new String[]{"ordersHistoryCB", "ordersHistoryRL", "exception"}) {
+            server.createContext("/" + endpoint, exchange -> handle(endpoint, exchange, orders));
+        }
+        //per user: /ordersHistory/{userId}, bulk: /ordersHistory?userIds=1&userIds=2
+        server.createContext("/ordersHistory",
+                exchange -> handle("ordersHistory", exchange, userOrders(exchange.getRequestURI())));
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getSlowBodies() {
+        return slowBodies.sum();
+    }
+
+    public long getHangs() {
+        return hangs.sum();
+    }
+
+    public long getNotModified() {
+        return notModified.sum();
+    }
+
+    //response bodies as sent, after gzip
+    public long getBodyBytes() {
+        return bodyBytes.sum();
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(String endpoint, HttpExchange exchange, Object orders) throws IOException {
+        FaultConfig faults = properties.getFaults(endpoint);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        requests.increment();
+        try {
+            if (random.nextDouble() < faults.getHangRate()) {
+                hangs.increment();
+                sleep(faults.getHangDuration().toNanos());
+                return;
+            }
+            sleep(latencyNanos(faults, random));
+            if (random.nextDouble() < faults.getErrorRate()) {
+                errors.increment();
+                exchange.sendResponseHeaders(faults.getErrorStatus(), -1);
+                return;
+            }
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            boolean smile = properties.isSmile() && accept != null && accept.contains(PayloadEncoding.SMILE);
+            byte[] encoded = (smile ? SMILE_MAPPER : MAPPER).writeValueAsBytes(orders);
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean gzip = properties.isGzip() && acceptEncoding != null && acceptEncoding.contains("gzip")
+                    && encoded.length >= properties.getGzipMinSize().toBytes();
+            //one tag per representation, the checksum of the encoded history and the content coding
+            String etag = "\"" + Long.toHexString(checksum(encoded)) + (gzip ? "-gzip" : "") + "\"";
+            if (properties.isEtags()) {
+                exchange.getResponseHeaders().add("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.increment();
+                    //the server closes a connection whose request wasn't read to the end once a response without
+                    // a body is sent, which the 304 would be for every pooled connection
+                    exchange.getRequestBody().close();
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+            }
+            byte[] bytes = gzip ? gzip(encoded) : encoded;
+            exchange.getResponseHeaders().add("Content-Type", smile ? PayloadEncoding.SMILE : PayloadEncoding.JSON);
+            exchange.getResponseHeaders().add("Vary", "Accept, Accept-Encoding");
+            if (gzip) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, bytes.length);
+            bodyBytes.add(bytes.length);
+            OutputStream body = exchange.getResponseBody();
+            if (random.nextDouble() < faults.getSlowBodyRate()) {
+                slowBodies.increment();
+                for (int offset = 0; offset < bytes.length; offset += SLOW_BODY_CHUNK) {
+                    body.write(bytes, offset, Math.min(SLOW_BODY_CHUNK, bytes.length - offset));
+                    body.flush();
+                    sleep(faults.getSlowBodyChunkDelay().toNanos());
+                }
+            } else {
+                body.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Object userOrders(URI uri) throws IOException {
+        String path = uri.getPath();
+        if (path.startsWith("/ordersHistory/")) {
+            return ordersOf(path.substring("/ordersHistory/".length()));
+        }
+        Map<String, List<String>> ordersByUser = new LinkedHashMap<>();
+        String query = uri.getRawQuery() == null ? "" : uri.getRawQuery();
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("userIds=")) {
+                String value = URLDecoder.decode(parameter.substring("userIds=".length()), "UTF-8");
+                for (String userId : value.split(",")) {
+                    ordersByUser.put(userId, ordersOf(userId));
+                }
+            }
+        }
+        return ordersByUser;
+    }
+
+    //the same four books every time for a user, drawn from one of SERIES series of SERIES_LENGTH books, so users
+    // of a series share books and the recommendation index has co-occurrences to work with
+    private static List<String> ordersOf(String userId) {
+        Random random = new Random(userId.hashCode());
+        int first = random.nextInt(SERIES) * SERIES_LENGTH;
+        List<String> orders = new ArrayList<>(USER_ORDERS);
+        while (orders.size() < USER_ORDERS) {
+            String book = "Java Book " + (first + 1 + random.nextInt(SERIES_LENGTH));
+            if (!orders.contains(book)) {
+                orders.add(book);
+            }
+        }
+        return orders;
+    }
+
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static long latencyNanos(FaultConfig faults, ThreadLocalRandom random) {
+        long latency = faults.getLatency().toNanos();
+        long maxLatency = Math.max(latency, faults.getMaxLatency().toNanos());
+        switch (faults.getLatencyDistribution()) {
+            case UNIFORM:
+                return latency + (long) (random.nextDouble() * (maxLatency - latency));
+            case EXPONENTIAL:
+                return Math.min(maxLatency, (long) (-latency * Math.log(1 - random.nextDouble())));
+            default:
+                return latency;
+        }
+    }
+
+    private static void sleep(long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.mpa.microservices.resilient.bookstore.standin;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.stand-in")
+public class OrdersHistoryStandInProperties {
+
+    //0 picks a free port, see OrdersHistoryStandIn.getBaseUrl()
+    private int port = 9091;
+    //keyed by endpoint: ordersHistoryCB, ordersHistoryRL, exception, ordersHistory (per user and bulk)
+    private Map<String, FaultConfig> endpoints = new HashMap<>();
+    //books in the ordersHistoryCB, ordersHistoryRL and exception histories
+    private int historyLength = 4;
+    //what the stand-in offers: Smile to requests accepting it, gzip for bodies of at least gzipMinSize to requests
+    // accepting it, ETags and 304 to If-None-Match
+    private boolean smile = true;
+    private boolean gzip = true;
+    private DataSize gzipMinSize = DataSize.ofBytes(256);
+    private boolean etags = true;
+
+    public OrdersHistoryStandInProperties() {
+        FaultConfig exception = new FaultConfig();
+        exception.setErrorRate(1.0);
+        endpoints.put("exception", exception);
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public Map<String, FaultConfig> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, FaultConfig> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public int getHistoryLength() {
+        return historyLength;
+    }
+
+    public void setHistoryLength(int historyLength) {
+        this.historyLength = historyLength;
+    }
+
+    public boolean isSmile() {
+        return smile;
+    }
+
+    public void setSmile(boolean smile) {
+        this.smile = smile;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    public DataSize getGzipMinSize() {
+        return gzipMinSize;
+    }
+
+    public void setGzipMinSize(DataSize gzipMinSize) {
+        this.gzipMinSize = gzipMinSize;
+    }
+
+    public boolean isEtags() {
+        return etags;
+    }
+
+    public void setEtags(boolean etags) {
+        this.etags = etags;
+    }
+
+    public FaultConfig getFaults(String endpoint) {
+        return endpoints.getOrDefault(endpoint, new FaultConfig());
+    }
+
+    public enum LatencyDistribution {
+        //always latency
+        CONSTANT,
+        //evenly spread between latency and maxLatency
+        UNIFORM,
+        //mean latency, long tail cut at maxLatency
+        EXPONENTIAL
+    }
+
+    public static class FaultConfig {
+
+        private LatencyDistribution latencyDistribution = LatencyDistribution.CONSTANT;
+        private Duration latency = Duration.ZERO;
+        private Duration maxLatency = Duration.ofSeconds(5);
+        //share of requests answered with errorStatus and no body
+        private double errorRate;
+        private int errorStatus = 500;
+        //share of requests whose body is sent in small chunks, slowBodyChunkDelay apart
+        private double slowBodyRate;
+        private Duration slowBodyChunkDelay = Duration.ofMillis(100);
+        //share of requests that never get a response, the connection is dropped after hangDuration
+        private double hangRate;
+        private Duration hangDuration = Duration.ofMinutes(1);
+
+        public LatencyDistribution getLatencyDistribution() {
+            return latencyDistribution;
+        }
+
+        public void setLatencyDistribution(LatencyDistribution latencyDistribution) {
+            this.latencyDistribution = latencyDistribution;
+        }
+
+        public Duration getLatency() {
+            return latency;
+        }
+
+        public void setLatency(Duration latency) {
+            this.latency = latency;
+        }
+
+        public Duration getMaxLatency() {
+            return maxLatency;
+        }
+
+        public void setMaxLatency(Duration maxLatency) {
+            this.maxLatency = maxLatency;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public void setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+        }
+
+        public int getErrorStatus() {
+            return errorStatus;
+        }
+
+        public void setErrorStatus(int errorStatus) {
+            this.errorStatus = errorStatus;
+        }
+
+        public double getSlowBodyRate() {
+            return slowBodyRate;
+        }
+
+        public void setSlowBodyRate(double slowBodyRate) {
+            this.slowBodyRate = slowBodyRate;
+        }
+
+        public Duration getSlowBodyChunkDelay() {
+            return slowBodyChunkDelay;
+        }
+
+        public void setSlowBodyChunkDelay(Duration slowBodyChunkDelay) {
+            this.slowBodyChunkDelay = slowBodyChunkDelay;
+        }
+
+        public double getHangRate() {
+            return hangRate;
+        }
+
+        public void setHangRate(double hangRate) {
+            this.hangRate = hangRate;
+        }
+
+        public Duration getHangDuration() {
+            return hangDuration;
+        }
+
+        public void setHangDuration(Duration hangDuration) {
+            this.hangDuration = hangDuration;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.mpa.microservices.resilient.bookstore.startup;
+
+import com.mpa.microservices.resilient.bookstore.standin.OrdersHistoryStandIn;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//Beans that stay eager under spring.main.lazy-initialization (the fast-startup profile). Nothing injects the stand-in,
+// lazily it would never start, and meter binders register the circuit breaker transition listeners and gauges that
+// have to be there before the first request rather than from the first scrape on. Filters, the controllers' handler
+// mappings and bean post processors are created at startup regardless.
+@Configuration
+public class EagerBeansConfiguration {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(OrdersHistoryStandIn.class, MeterBinder.class);
+    }
+}
@@ -0,0 +1,34 @@
+package com.mpa.microservices.resilient.bookstore.startup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.startup")
+public class StartupProperties {
+
+    //set by the run that records the class-data-sharing archive: once started the application calls trainingPaths
+    // on itself, so the classes of the first requests are archived too, and exits
+    private boolean trainingRun = false;
+    private List<String> trainingPaths = new ArrayList<>(Arrays.asList(
+            "/recommendations/withCB", "/reactive/recommendations/withCB", "/ratelimiter/1", "/actuator/prometheus"));
+
+    public boolean isTrainingRun() {
+        return trainingRun;
+    }
+
+    public void setTrainingRun(boolean trainingRun) {
+        this.trainingRun = trainingRun;
+    }
+
+    public List<String> getTrainingPaths() {
+        return trainingPaths;
+    }
+
+    public void setTrainingPaths(List<String> trainingPaths) {
+        this.trainingPaths = trainingPaths;
+    }
+}
@@ -0,0 +1,58 @@
+package com.mpa.microservices.resilient.bookstore.startup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+//Drives the run recording the class-data-sharing archive (-XX:ArchiveClassesAtExit, see the fast-startup profile):
+// warms the training paths up once the application is ready and exits, the JVM writes the archive on the way out.
+// The calls only need to load classes, failed ones (no order-history-service) are fine.
+@Component
+@ConditionalOnProperty(prefix = "recommendations.startup", name = "training-run", havingValue = "true")
+public class TrainingRun {
+
+    private static final Logger log = LoggerFactory.getLogger(TrainingRun.class);
+    private static final int TIMEOUT_MILLIS = 5000;
+
+    private StartupProperties properties;
+
+    public TrainingRun(StartupProperties properties) {
+        this.properties = properties;
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        WebServerApplicationContext context = (WebServerApplicationContext) event.getApplicationContext();
+        int port = context.getWebServer().getPort();
+        for (String path : properties.getTrainingPaths()) {
+            log.info("training run: GET {} -> {}", path, call("http://localhost:" + port + path));
+        }
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+
+    private static String call(String url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            int status = connection.getResponseCode();
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                body.readAllBytes();
+                body.close();
+            }
+            return String.valueOf(status);
+        } catch (IOException e) {
+            return e.toString();
+        }
+    }
+}
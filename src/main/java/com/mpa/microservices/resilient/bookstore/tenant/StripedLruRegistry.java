@@ -0,0 +1,188 @@
+package com.mpa.microservices.resilient.bookstore.tenant;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+//Instances created on first use of their key and kept in independently locked, access ordered stripes: lookups of
+// different keys rarely contend, and a lookup holds one stripe lock for a map get. Each stripe keeps at most
+// maxSize / stripes entries, evicting the least recently used, and drops entries unused for idleTimeout whenever it
+// creates one, so memory is bounded by maxSize however many keys come and go. Given a weigher, the stripes are
+// bounded by the summed weight of their entries instead, maxWeight / stripes each, and values can be put as well.
+public class StripedLruRegistry<V> {
+
+    private final Stripe<V>[] stripes;
+    private final long maxPerStripe;
+    private final long idleNanos;
+    private final ToLongFunction<V> weigher;
+    private final Function<String, V> factory;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public StripedLruRegistry(int maxSize, int stripes, long idleNanos, Function<String, V> factory) {
+        this(maxSize, stripes, idleNanos, value -> 1, factory);
+    }
+
+    //factory may be null when values are only put
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public StripedLruRegistry(long maxWeight, int stripes, long idleNanos, ToLongFunction<V> weigher,
+            Function<String, V> factory) {
+        int stripeCount = Integer.highestOneBit((int) Math.max(1, Math.min(stripes, maxWeight)));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe<>();
+        }
+        this.maxPerStripe = Math.max(1, (maxWeight + stripeCount - 1) / stripeCount);
+        this.idleNanos = idleNanos;
+        this.weigher = weigher;
+        this.factory = factory;
+    }
+
+    public V get(String key) {
+        Stripe<V> stripe = stripe(key);
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            Entry<V> entry = stripe.entries.get(key);
+            if (entry != null) {
+                entry.lastUsed = now;
+                return entry.value;
+            }
+            V value = factory.apply(key);
+            add(stripe, key, value, now);
+            created.increment();
+            return value;
+        }
+    }
+
+    //null when absent, never creates
+    public V getIfPresent(String key) {
+        Stripe<V> stripe = stripe(key);
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            Entry<V> entry = stripe.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            entry.lastUsed = now;
+            return entry.value;
+        }
+    }
+
+    //replaces the value of the key, if any
+    public void put(String key, V value) {
+        Stripe<V> stripe = stripe(key);
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            Entry<V> replaced = stripe.entries.remove(key);
+            if (replaced != null) {
+                stripe.weight -= replaced.weight;
+            }
+            add(stripe, key, value, now);
+        }
+    }
+
+    public void remove(String key) {
+        Stripe<V> stripe = stripe(key);
+        synchronized (stripe) {
+            Entry<V> removed = stripe.entries.remove(key);
+            if (removed != null) {
+                stripe.weight -= removed.weight;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    //the number of entries unless there is a weigher
+    public long weight() {
+        long weight = 0;
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                weight += stripe.weight;
+            }
+        }
+        return weight;
+    }
+
+    public long getCreated() {
+        return created.sum();
+    }
+
+    //pushed out by maxSize while still in use
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    //dropped after idleTimeout without a lookup
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    //called holding the stripe lock; an entry heavier than a whole stripe is not kept
+    private void add(Stripe<V> stripe, String key, V value, long now) {
+        expireIdle(stripe, now);
+        Entry<V> entry = new Entry<>(value, weigher.applyAsLong(value), now);
+        stripe.entries.put(key, entry);
+        stripe.weight += entry.weight;
+        Iterator<Entry<V>> eldest = stripe.entries.values().iterator();
+        while (stripe.weight > maxPerStripe && eldest.hasNext()) {
+            stripe.weight -= eldest.next().weight;
+            eldest.remove();
+            evicted.increment();
+        }
+    }
+
+    //called holding the stripe lock, the least recently used entries come first
+    private void expireIdle(Stripe<V> stripe, long now) {
+        Iterator<Entry<V>> entries = stripe.entries.values().iterator();
+        while (entries.hasNext()) {
+            Entry<V> entry = entries.next();
+            if (now - entry.lastUsed <= idleNanos) {
+                return;
+            }
+            entries.remove();
+            stripe.weight -= entry.weight;
+            expired.increment();
+        }
+    }
+
+    private Stripe<V> stripe(String key) {
+        return stripes[spread(key.hashCode()) & (stripes.length - 1)];
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Stripe<V> {
+
+        private final Map<String, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long weight;
+        private long lastUsed;
+
+        private Entry(V value, long weight, long lastUsed) {
+            this.value = value;
+            this.weight = weight;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
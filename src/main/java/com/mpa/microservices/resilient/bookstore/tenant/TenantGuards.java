@@ -0,0 +1,23 @@
+package com.mpa.microservices.resilient.bookstore.tenant;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+
+public class TenantGuards {
+
+    private final CircuitBreaker circuitBreaker;
+    private final RateLimiter rateLimiter;
+
+    public TenantGuards(CircuitBreaker circuitBreaker, RateLimiter rateLimiter) {
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+}
@@ -0,0 +1,40 @@
+package com.mpa.microservices.resilient.bookstore.tenant;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import org.springframework.stereotype.Component;
+
+//A circuit breaker and a rate limiter per tenant, built from the configs named in recommendations.tenants. They are
+// deliberately kept out of the resilience4j registries: those never forget an instance, and resilience4j-micrometer
+// would tag meters with every tenant id. An evicted tenant starts over with a closed breaker and a full limiter.
+@Component
+public class TenantGuardsRegistry {
+
+    private StripedLruRegistry<TenantGuards> guards;
+
+    public TenantGuardsRegistry(TenantProperties tenantProperties, CircuitBreakerRegistry circuitBreakerRegistry,
+            RateLimiterRegistry rateLimiterRegistry) {
+        CircuitBreakerConfig circuitBreakerConfig = circuitBreakerRegistry
+                .getConfiguration(tenantProperties.getCircuitBreakerConfig())
+                .orElseGet(circuitBreakerRegistry::getDefaultConfig);
+        RateLimiterConfig rateLimiterConfig = rateLimiterRegistry
+                .getConfiguration(tenantProperties.getRateLimiterConfig())
+                .orElseGet(rateLimiterRegistry::getDefaultConfig);
+        this.guards = new StripedLruRegistry<>(tenantProperties.getMaxTenants(), tenantProperties.getStripes(),
+                tenantProperties.getIdleTimeout().toNanos(),
+                tenantId -> new TenantGuards(CircuitBreaker.of("tenant:" + tenantId, circuitBreakerConfig),
+                        RateLimiter.of("tenant:" + tenantId, rateLimiterConfig)));
+    }
+
+    public TenantGuards guards(String tenantId) {
+        return guards.get(tenantId);
+    }
+
+    public StripedLruRegistry<TenantGuards> getRegistry() {
+        return guards;
+    }
+}
@@ -0,0 +1,58 @@
+package com.mpa.microservices.resilient.bookstore.tenant;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "recommendations.tenants")
+public class TenantProperties {
+
+    //tenants with a circuit breaker and rate limiter at any time, the least recently seen are evicted beyond it
+    private int maxTenants = 100000;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private int stripes = 64;
+    //resilience4j.circuitbreaker.configs and resilience4j.ratelimiter.configs entries every tenant's instances copy
+    private String circuitBreakerConfig = "tenant";
+    private String rateLimiterConfig = "tenant";
+
+    public int getMaxTenants() {
+        return maxTenants;
+    }
+
+    public void setMaxTenants(int maxTenants) {
+        this.maxTenants = maxTenants;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public String getCircuitBreakerConfig() {
+        return circuitBreakerConfig;
+    }
+
+    public void setCircuitBreakerConfig(String circuitBreakerConfig) {
+        this.circuitBreakerConfig = circuitBreakerConfig;
+    }
+
+    public String getRateLimiterConfig() {
+        return rateLimiterConfig;
+    }
+
+    public void setRateLimiterConfig(String rateLimiterConfig) {
+        this.rateLimiterConfig = rateLimiterConfig;
+    }
+}
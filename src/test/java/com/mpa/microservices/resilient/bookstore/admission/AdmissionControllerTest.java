@@ -0,0 +1,98 @@
+package com.mpa.microservices.resilient.bookstore.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AdmissionControllerTest {
+
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void highPriorityIsAdmittedAheadOfEarlierNormalAndLowWaiters() throws Exception {
+        //NORMAL and LOW may take one of the two slots, HIGH both
+        AdmissionController controller = controller(2, TimeUnit.SECONDS.toNanos(10));
+        assertThat(controller.acquire(Priority.HIGH)).isTrue();
+        assertThat(controller.acquire(Priority.HIGH)).isTrue();
+        Future<Boolean> low = enqueue(controller, Priority.LOW, 1);
+        Future<Boolean> normal = enqueue(controller, Priority.NORMAL, 2);
+        Future<Boolean> high = enqueue(controller, Priority.HIGH, 3);
+
+        controller.release();
+
+        assertThat(high.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(controller.getQueued()).isEqualTo(2);
+        assertThat(normal.isDone()).isFalse();
+
+        //with two in flight, then one, neither NORMAL nor LOW fits their share
+        controller.release();
+        assertThat(controller.getQueued()).isEqualTo(2);
+        controller.release();
+        assertThat(normal.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(low.isDone()).isFalse();
+        controller.release();
+        assertThat(low.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(controller.getQueued()).isZero();
+    }
+
+    @Test
+    void timedOutWaitersLeaveTheQueue() throws Exception {
+        AdmissionController controller = controller(1, TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(controller.acquire(Priority.HIGH)).isTrue();
+
+        assertThat(controller.acquire(Priority.NORMAL)).isFalse();
+
+        assertThat(controller.getQueued()).isZero();
+        assertThat(controller.getTimedOut()).isEqualTo(1);
+        //the slot released afterwards isn't handed to the waiter that gave up
+        controller.release();
+        assertThat(controller.getInFlight()).isZero();
+        assertThat(controller.acquire(Priority.NORMAL)).isTrue();
+    }
+
+    @Test
+    void lowPriorityIsShedOnceItsQueueIsOverloaded() throws Exception {
+        AdmissionController controller = controller(1, TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(controller.acquire(Priority.HIGH)).isTrue();
+        assertThat(controller.isOverloaded(Priority.LOW)).isFalse();
+
+        //waited a whole interval, far above target
+        assertThat(controller.acquire(Priority.LOW)).isFalse();
+        assertThat(controller.isOverloaded(Priority.LOW)).isTrue();
+
+        long start = System.nanoTime();
+        assertThat(controller.acquire(Priority.LOW)).isFalse();
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(controller.getShed()).isEqualTo(1);
+        assertThat(controller.getTimedOut()).isEqualTo(1);
+        assertThat(controller.getQueued()).isZero();
+        //NORMAL has a standing queue of its own to build before it is shed
+        assertThat(controller.isOverloaded(Priority.NORMAL)).isFalse();
+    }
+
+    private static AdmissionController controller(int maxInFlight, long intervalNanos) {
+        return new AdmissionController(maxInFlight, 0.5, 0.5, 10, TARGET, intervalNanos);
+    }
+
+    //acquires on another thread and returns once the request is waiting in the queue
+    private Future<Boolean> enqueue(AdmissionController controller, Priority priority, int queued)
+            throws InterruptedException {
+        Future<Boolean> admitted = executor.submit(() -> controller.acquire(priority));
+        while (controller.getQueued() < queued) {
+            Thread.sleep(1);
+        }
+        return admitted;
+    }
+}
@@ -0,0 +1,174 @@
+package com.mpa.microservices.resilient.bookstore.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class LeasedRateLimiterTest {
+
+    //a window that won't roll over while a test runs
+    private static final Duration NO_ROLLOVER = Duration.ofDays(10_000);
+
+    @Test
+    void instancesSharingACoordinatorGrantTheLimitTogether() throws Exception {
+        InProcessPermitCoordinator coordinator = new InProcessPermitCoordinator();
+        RateLimiterConfig config = config(NO_ROLLOVER, 100, Duration.ZERO);
+        LeasedRateLimiter first = new LeasedRateLimiter("shared", config, coordinator, 7);
+        LeasedRateLimiter second = new LeasedRateLimiter("shared", config, coordinator, 7);
+        AtomicInteger granted = new AtomicInteger();
+
+        runConcurrently(8, thread -> {
+            LeasedRateLimiter limiter = thread % 2 == 0 ? first : second;
+            for (int i = 0; i < 100; i++) {
+                if (limiter.acquirePermission()) {
+                    granted.incrementAndGet();
+                }
+            }
+        });
+
+        //each instance spends what it leased before it is turned away, so none of the limit is lost either
+        assertThat(granted.get()).isEqualTo(100);
+    }
+
+    @Test
+    void combinedGrantsNeverExceedTheLimitInAnyWindow() throws Exception {
+        long periodMillis = 50;
+        InProcessPermitCoordinator coordinator = new InProcessPermitCoordinator();
+        RateLimiterConfig config = config(Duration.ofMillis(periodMillis), 20, Duration.ZERO);
+        LeasedRateLimiter first = new LeasedRateLimiter("shared", config, coordinator, 3);
+        LeasedRateLimiter second = new LeasedRateLimiter("shared", config, coordinator, 3);
+        Map<Long, AtomicInteger> grantedPerWindow = new ConcurrentHashMap<>();
+        long end = System.currentTimeMillis() + 10 * periodMillis;
+
+        runConcurrently(4, thread -> {
+            LeasedRateLimiter limiter = thread % 2 == 0 ? first : second;
+            while (System.currentTimeMillis() < end) {
+                long before = System.currentTimeMillis() / periodMillis;
+                boolean permitted = limiter.reservePermission() == 0;
+                long after = System.currentTimeMillis() / periodMillis;
+                //a grant is only attributed to a window when the call didn't straddle two
+                if (permitted && before == after) {
+                    grantedPerWindow.computeIfAbsent(before, window -> new AtomicInteger()).incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(grantedPerWindow).hasSizeGreaterThan(5);
+        grantedPerWindow.values().forEach(granted -> assertThat(granted.get()).isLessThanOrEqualTo(20));
+    }
+
+    @Test
+    void reservesFromTheNextWindowOnceTheCurrentOneRanOut() throws Exception {
+        long periodMillis = 500;
+        InProcessPermitCoordinator coordinator = new InProcessPermitCoordinator();
+        RateLimiterConfig config = config(Duration.ofMillis(periodMillis), 2, Duration.ofSeconds(1));
+        LeasedRateLimiter first = new LeasedRateLimiter("shared", config, coordinator, 2);
+        LeasedRateLimiter second = new LeasedRateLimiter("shared", config, coordinator, 2);
+        awaitNextWindow(periodMillis);
+
+        assertThat(first.reservePermission()).isZero();
+        assertThat(first.reservePermission()).isZero();
+        long waitNanos = first.reservePermission();
+        assertThat(waitNanos).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(periodMillis));
+        //first leased the whole next window
+        assertThat(second.reservePermission()).isEqualTo(-1);
+
+        awaitNextWindow(periodMillis);
+
+        //the rest of what first leased ahead carries over into the window it was leased for
+        assertThat(first.reservePermission()).isZero();
+        assertThat(first.getMetrics().getAvailablePermissions()).isZero();
+        assertThat(first.reservePermission()).isPositive();
+        assertThat(second.reservePermission()).isEqualTo(-1);
+    }
+
+    @Test
+    void anExhaustedWindowIsNotAskedForAgain() {
+        CountingCoordinator coordinator = new CountingCoordinator();
+        LeasedRateLimiter limiter = new LeasedRateLimiter("shared", config(NO_ROLLOVER, 2, Duration.ZERO),
+                coordinator, 2);
+
+        assertThat(limiter.acquirePermission()).isTrue();
+        assertThat(limiter.acquirePermission()).isTrue();
+        assertThat(limiter.acquirePermission()).isFalse();
+        assertThat(coordinator.leases.get()).isEqualTo(2);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.acquirePermission()).isFalse();
+        }
+        assertThat(coordinator.leases.get()).isEqualTo(2);
+    }
+
+    @Test
+    void releaseGivesUnspentPermitsToTheOtherInstances() {
+        InProcessPermitCoordinator coordinator = new InProcessPermitCoordinator();
+        RateLimiterConfig config = config(NO_ROLLOVER, 10, Duration.ZERO);
+        LeasedRateLimiter first = new LeasedRateLimiter("shared", config, coordinator, 10);
+        LeasedRateLimiter second = new LeasedRateLimiter("shared", config, coordinator, 10);
+        assertThat(first.acquirePermission()).isTrue();
+
+        first.release();
+
+        for (int i = 0; i < 9; i++) {
+            assertThat(second.acquirePermission()).isTrue();
+        }
+        assertThat(second.acquirePermission()).isFalse();
+    }
+
+    private static RateLimiterConfig config(Duration period, int limitForPeriod, Duration timeout) {
+        return RateLimiterConfig.custom()
+                .limitRefreshPeriod(period)
+                .limitForPeriod(limitForPeriod)
+                .timeoutDuration(timeout)
+                .build();
+    }
+
+    //a little into the next window, so the calls that follow all fall into it
+    private static void awaitNextWindow(long periodMillis) throws InterruptedException {
+        long now = System.currentTimeMillis();
+        Thread.sleep((now / periodMillis + 1) * periodMillis - now + 10);
+    }
+
+    private static void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int index = thread;
+                futures.add(executor.submit(() -> task.run(index)));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThreadTask {
+
+        void run(int thread);
+    }
+
+    private static class CountingCoordinator extends InProcessPermitCoordinator {
+
+        private final AtomicInteger leases = new AtomicInteger();
+
+        @Override
+        public int lease(String name, long window, int limit, int requested) {
+            leases.incrementAndGet();
+            return super.lease(name, window, limit, requested);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.mpa.microservices.resilient.bookstore.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class LeasedWindowsTest {
+
+    @Test
+    void leasesUpToTheLimitPerWindow() {
+        LeasedWindows windows = new LeasedWindows();
+
+        assertThat(windows.lease(1, 10, 4)).isEqualTo(4);
+        assertThat(windows.lease(1, 10, 4)).isEqualTo(4);
+        assertThat(windows.lease(1, 10, 4)).isEqualTo(2);
+        assertThat(windows.lease(1, 10, 4)).isZero();
+        //the next window has a limit of its own
+        assertThat(windows.lease(2, 10, 4)).isEqualTo(4);
+    }
+
+    @Test
+    void aNewerWindowRecyclesTheOlderSlot() {
+        LeasedWindows windows = new LeasedWindows();
+        windows.lease(1, 10, 10);
+        windows.lease(2, 10, 3);
+
+        assertThat(windows.lease(3, 10, 10)).isEqualTo(10);
+        //window 2 kept its slot and its count, window 1 is gone and can't be leased from again
+        assertThat(windows.lease(2, 10, 10)).isEqualTo(7);
+        assertThat(windows.lease(1, 10, 10)).isZero();
+    }
+
+    @Test
+    void releasedPermitsCanBeLeasedAgain() {
+        LeasedWindows windows = new LeasedWindows();
+        windows.lease(1, 10, 10);
+
+        windows.release(1, 3);
+        //releasing into a window that is no longer tracked does nothing
+        windows.release(7, 5);
+
+        assertThat(windows.lease(1, 10, 10)).isEqualTo(3);
+    }
+}
@@ -0,0 +1,65 @@
+package com.mpa.microservices.resilient.bookstore.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class CoOccurrenceIndexTest {
+
+    @Test
+    void pushingOutTheOldestBookTakesItsPairsBackOut() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(2);
+        index.update("reader", Arrays.asList("a", "b"));
+        assertThat(index.footprint().getPairs()).isEqualTo(1);
+
+        assertThat(index.update("reader", Arrays.asList("a", "b", "c"))).isTrue();
+
+        //a-b is gone, b-c took its place
+        assertThat(index.footprint().getPairs()).isEqualTo(1);
+        index.update("owns-a", Collections.singletonList("a"));
+        index.update("owns-b", Collections.singletonList("b"));
+        assertThat(index.recommend("owns-a", 5)).isEmpty();
+        assertThat(index.recommend("owns-b", 5)).containsExactly("c");
+    }
+
+    @Test
+    void pairsSharedWithOtherUsersOutliveTheEviction() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(2);
+        index.update("first", Arrays.asList("a", "b"));
+        index.update("second", Arrays.asList("a", "b"));
+
+        index.update("first", Arrays.asList("b", "c"));
+
+        assertThat(index.footprint().getPairs()).isEqualTo(2);
+        index.update("owns-a", Collections.singletonList("a"));
+        assertThat(index.recommend("owns-a", 5)).containsExactly("b");
+    }
+
+    @Test
+    void ranksByScoreThenByTheBookSeenFirst() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(10);
+        //interned in the order x, c, a, b: ties must not fall back to the names
+        index.update("first", Arrays.asList("x", "c", "a", "b"));
+        index.update("reader", Collections.singletonList("x"));
+        assertThat(index.recommend("reader", 5)).containsExactly("c", "a", "b");
+
+        index.update("second", Arrays.asList("x", "b"));
+        assertThat(index.recommend("reader", 5)).containsExactly("b", "c", "a");
+    }
+
+    @Test
+    void returnsAtMostLimitBooksLeavingOutTheUsersOwn() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(10);
+        index.update("first", Arrays.asList("x", "y", "a", "b", "c"));
+        index.update("second", Arrays.asList("x", "y"));
+        index.update("reader", Arrays.asList("x", "y"));
+
+        //y has the highest score through x but is the reader's own
+        assertThat(index.recommend("reader", 2)).containsExactly("a", "b");
+        assertThat(index.recommend("reader", 1)).containsExactly("a");
+        assertThat(index.recommend("reader", 0)).isEmpty();
+        assertThat(index.recommend("unknown", 2)).isEmpty();
+    }
+}
@@ -0,0 +1,103 @@
+package com.mpa.microservices.resilient.bookstore.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IntIntHashMapTest {
+
+    //capacity 16, resized only past 12 entries
+    private static final int EXPECTED_SIZE = 12;
+
+    @Test
+    void removingTheHeadOfAWrappedClusterShiftsItBack() {
+        //b and d were pushed past the end of the table by a, c sits one slot after its home
+        int a = keyWithHome(15, -1);
+        int b = keyWithHome(15, a);
+        int c = keyWithHome(0, -1);
+        int d = keyWithHome(15, b);
+        IntIntHashMap map = new IntIntHashMap(EXPECTED_SIZE);
+        map.addTo(a, 1);
+        map.addTo(b, 2);
+        map.addTo(c, 3);
+        map.addTo(d, 4);
+        assertThat(slotKeys(map, 15, 0, 1, 2)).containsExactly(a, b, c, d);
+
+        assertThat(map.addTo(a, -1)).isZero();
+
+        assertThat(slotKeys(map, 15, 0, 1, 2)).containsExactly(b, c, d, -1);
+        assertThat(map.size()).isEqualTo(3);
+        assertThat(map.get(a)).isZero();
+        assertThat(map.get(b)).isEqualTo(2);
+        assertThat(map.get(c)).isEqualTo(3);
+        assertThat(map.get(d)).isEqualTo(4);
+    }
+
+    @Test
+    void entriesAtTheirHomeStayWhenAWrappedClusterShrinks() {
+        //b is at its home right after the end of the table, c was pushed past it
+        int a = keyWithHome(15, -1);
+        int b = keyWithHome(0, -1);
+        int c = keyWithHome(15, a);
+        IntIntHashMap map = new IntIntHashMap(EXPECTED_SIZE);
+        map.addTo(a, 1);
+        map.addTo(b, 2);
+        map.addTo(c, 3);
+        assertThat(slotKeys(map, 15, 0, 1)).containsExactly(a, b, c);
+
+        map.addTo(a, -1);
+
+        //moving b into a's slot would put it before its home, c skips over it
+        assertThat(slotKeys(map, 15, 0, 1)).containsExactly(c, b, -1);
+        assertThat(map.get(b)).isEqualTo(2);
+        assertThat(map.get(c)).isEqualTo(3);
+    }
+
+    @Test
+    void matchesAHashMapUnderRandomAddsAndRemoves() {
+        Random random = new Random(42);
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(64);
+            Integer value = expected.get(key);
+            int delta = value != null && random.nextBoolean() ? -value : 1 + random.nextInt(3);
+            int result = map.addTo(key, delta);
+            int sum = (value == null ? 0 : value) + delta;
+            assertThat(result).isEqualTo(sum);
+            if (sum == 0) {
+                expected.remove(key);
+            } else {
+                expected.put(key, sum);
+            }
+        }
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (int key = 0; key < 64; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, 0));
+        }
+    }
+
+    //the first key after the given one whose home slot in a map of EXPECTED_SIZE is home
+    private static int keyWithHome(int home, int after) {
+        for (int key = after + 1; ; key++) {
+            IntIntHashMap map = new IntIntHashMap(EXPECTED_SIZE);
+            map.addTo(key, 1);
+            if (map.keyAt(home) == key) {
+                return key;
+            }
+        }
+    }
+
+    private static List<Integer> slotKeys(IntIntHashMap map, int... slots) {
+        List<Integer> keys = new ArrayList<>();
+        for (int slot : slots) {
+            keys.add(map.keyAt(slot));
+        }
+        return keys;
+    }
+}